@@ -36,6 +36,20 @@ public class CustomerController {
         return ResponseEntity.ok(customerService.getCustomerById(id));
     }
 
+    // Consulta masiva por IDs (usada por loan-service para evitar N+1 llamadas)
+    @GetMapping("/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ANALISTA')")
+    public ResponseEntity<List<CustomerResponse>> getCustomersByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(customerService.getCustomersByIds(ids));
+    }
+
+    // Historiales crediticios por IDs de cliente (usada por credit-evaluation-service al evaluar en lote)
+    @GetMapping("/credit-history/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ANALISTA')")
+    public ResponseEntity<List<CreditHistoryResponse>> getCreditHistories(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(customerService.getCreditHistories(ids));
+    }
+
     // Solo ANALISTA y ADMIN buscan por DNI (para evaluación crediticia)
     @GetMapping("/dni/{dni}")
     @PreAuthorize("hasAnyRole('ANALISTA', 'ADMIN')")
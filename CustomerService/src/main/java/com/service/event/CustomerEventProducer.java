@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Component
 @RequiredArgsConstructor
@@ -17,4 +19,27 @@ public class CustomerEventProducer {
         log.info("Evento CustomerCreated enviado para customerId={}, email={}",
                 event.customerId(), event.email());
     }
+
+    // Se envía después del commit: loan-service invalida su caché y vuelve a consultar el cliente,
+    // así que antes del commit leería la fila anterior; un rollback no emite nada
+    public void sendCustomerUpdated(CustomerUpdatedEvent event) {
+        afterCommit(() -> {
+            kafkaTemplate.send("customer-updated", String.valueOf(event.customerId()), event);
+            log.info("Evento CustomerUpdated enviado para customerId={}, deleted={}",
+                    event.customerId(), event.deleted());
+        });
+    }
+
+    private void afterCommit(Runnable send) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send.run();
+            }
+        });
+    }
 }
\ No newline at end of file
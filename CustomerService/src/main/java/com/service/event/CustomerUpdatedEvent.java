@@ -0,0 +1,6 @@
+package com.service.event;
+
+public record CustomerUpdatedEvent(
+        Long customerId,
+        boolean deleted
+) {}
@@ -3,8 +3,11 @@ package com.service.repository;
 import com.service.entity.CreditHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CreditHistoryRepository extends JpaRepository<CreditHistory, Long> {
     Optional<CreditHistory> findByCustomerId(Long customerId);
+    List<CreditHistory> findByCustomerIdIn(Collection<Long> customerIds);
 }
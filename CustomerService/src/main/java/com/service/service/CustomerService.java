@@ -8,6 +8,7 @@ import com.service.entity.Customer;
 import com.service.entity.CustomerDocument;
 import com.service.event.CustomerCreatedEvent;
 import com.service.event.CustomerEventProducer;
+import com.service.event.CustomerUpdatedEvent;
 import com.service.repository.CreditHistoryRepository;
 import com.service.repository.CustomerDocumentRepository;
 import com.service.repository.CustomerRepository;
@@ -23,6 +24,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CustomerService {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final CustomerRepository customerRepository;
     private final CreditHistoryRepository creditHistoryRepository;
     private final CustomerDocumentRepository customerDocumentRepository;
@@ -70,6 +73,16 @@ public class CustomerService {
         return mapToResponse(customer);
     }
 
+    @Transactional(readOnly = true)
+    public List<CustomerResponse> getCustomersByIds(List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("Máximo " + MAX_BATCH_SIZE + " clientes por consulta");
+        }
+        return customerRepository.findAllById(ids).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
     @Transactional(readOnly = true)
     public CustomerResponse getCustomerByDni(String dni) {
         Customer customer = customerRepository.findByDni(dni)
@@ -101,6 +114,9 @@ public class CustomerService {
         customer.setEmployerName(request.getEmployerName());
 
         customer = customerRepository.save(customer);
+
+        customerEventProducer.sendCustomerUpdated(new CustomerUpdatedEvent(customer.getId(), false));
+
         return mapToResponse(customer);
     }
 
@@ -110,13 +126,28 @@ public class CustomerService {
             throw new RuntimeException("Cliente no encontrado");
         }
         customerRepository.deleteById(id);
+
+        customerEventProducer.sendCustomerUpdated(new CustomerUpdatedEvent(id, true));
     }
 
     @Transactional(readOnly = true)
     public CreditHistoryResponse getCreditHistory(Long customerId) {
         CreditHistory history = creditHistoryRepository.findByCustomerId(customerId)
                 .orElseThrow(() -> new RuntimeException("Historial crediticio no encontrado"));
+        return mapToResponse(history);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CreditHistoryResponse> getCreditHistories(List<Long> customerIds) {
+        if (customerIds.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("Máximo " + MAX_BATCH_SIZE + " clientes por consulta");
+        }
+        return creditHistoryRepository.findByCustomerIdIn(customerIds).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
 
+    private CreditHistoryResponse mapToResponse(CreditHistory history) {
         CreditHistoryResponse response = new CreditHistoryResponse();
         response.setCustomerId(history.getCustomerId());
         response.setCreditScore(history.getCreditScore());
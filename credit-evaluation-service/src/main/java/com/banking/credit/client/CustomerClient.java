@@ -6,6 +6,9 @@ import com.banking.credit.dto.CustomerResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(name = "customer-service", configuration = FeignConfig.class)
 public interface CustomerClient {
@@ -15,4 +18,10 @@ public interface CustomerClient {
 
     @GetMapping("/api/customers/{id}/credit-history")
     CreditHistoryResponse getCreditHistory(@PathVariable Long id);
+
+    @GetMapping("/api/customers/batch")
+    List<CustomerResponse> getCustomersByIds(@RequestParam("ids") List<Long> ids);
+
+    @GetMapping("/api/customers/credit-history/batch")
+    List<CreditHistoryResponse> getCreditHistories(@RequestParam("ids") List<Long> ids);
 }
@@ -2,33 +2,55 @@ package com.banking.credit.consumer;
 
 import com.banking.credit.dto.EvaluationRequest;
 import com.banking.credit.event.LoanCreatedEvent;
+import com.banking.credit.service.BatchEvaluationService;
 import com.banking.credit.service.EvaluationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Objects;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class LoanEventConsumer {
 
     private final EvaluationService evaluationService;
+    private final BatchEvaluationService batchEvaluationService;
 
+    // Recibe un poll completo y lo evalúa como un lote
     @KafkaListener(topics = "loan-created", groupId = "evaluation-service")
-    public void handleLoanCreated(LoanCreatedEvent event) {
-        log.info("Received loan created event: {}", event.getLoanId());
+    public void handleLoanCreated(List<LoanCreatedEvent> events) {
+        List<EvaluationRequest> requests = events.stream()
+                .filter(Objects::nonNull)
+                .map(this::toRequest)
+                .toList();
+        log.info("Received {} loan created events", requests.size());
 
         try {
-            EvaluationRequest request = new EvaluationRequest();
-            request.setCustomerId(event.getCustomerId());
-            request.setLoanId(event.getLoanId());
+            batchEvaluationService.evaluateAll(requests);
+        } catch (Exception e) {
+            // Si el lote falla se reintenta préstamo por préstamo para no perder los válidos
+            log.error("Error evaluating loan batch, falling back to single evaluations: {}", e.getMessage());
+            requests.forEach(this::evaluateSingle);
+        }
+    }
 
+    private void evaluateSingle(EvaluationRequest request) {
+        try {
             evaluationService.createEvaluation(request);
-
-            log.info("Evaluation created for loan: {}", event.getLoanId());
+            log.info("Evaluation created for loan: {}", request.getLoanId());
         } catch (Exception e) {
             log.error("Error processing loan created event: {}", e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private EvaluationRequest toRequest(LoanCreatedEvent event) {
+        EvaluationRequest request = new EvaluationRequest();
+        request.setCustomerId(event.getCustomerId());
+        request.setLoanId(event.getLoanId());
+        return request;
+    }
+}
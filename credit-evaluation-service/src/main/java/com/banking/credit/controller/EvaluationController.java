@@ -3,8 +3,11 @@ package com.banking.credit.controller;
 import com.banking.credit.dto.EvaluationRequest;
 import com.banking.credit.dto.EvaluationResponse;
 import com.banking.credit.dto.ManualEvaluationRequest;
+import com.banking.credit.dto.RescoringProgressResponse;
 import com.banking.credit.enums.EvaluationStatus;
+import com.banking.credit.service.CreditScoringService;
 import com.banking.credit.service.EvaluationService;
+import com.banking.credit.service.RescoringService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -20,6 +23,8 @@ import java.util.List;
 public class EvaluationController {
 
     private final EvaluationService evaluationService;
+    private final CreditScoringService scoringService;
+    private final RescoringService rescoringService;
 
     // Solo el sistema interno (loan-service) crea evaluaciones automáticamente
     // ANALISTA puede crear evaluaciones manuales
@@ -51,6 +56,34 @@ public class EvaluationController {
         return ResponseEntity.ok(evaluationService.getEvaluationsByStatus(status));
     }
 
+    // Solo ADMIN: aplica de inmediato los cambios en evaluation_criteria
+    @PostMapping("/criteria/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> refreshScorecard() {
+        scoringService.refresh();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Solo ADMIN: re-scoring de todas las evaluaciones con los criterios vigentes.
+    // Con dryRun=true solo calcula la distribución de scores anterior y nueva, sin escribir
+    @PostMapping("/rescoring")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RescoringProgressResponse> startRescoring(@RequestParam(defaultValue = "false") boolean dryRun) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(rescoringService.start(dryRun));
+    }
+
+    @GetMapping("/rescoring/latest")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RescoringProgressResponse> getLatestRescoring() {
+        return ResponseEntity.ok(rescoringService.getLatestProgress());
+    }
+
+    @GetMapping("/rescoring/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RescoringProgressResponse> getRescoringProgress(@PathVariable Long jobId) {
+        return ResponseEntity.ok(rescoringService.getProgress(jobId));
+    }
+
     // Solo ANALISTA completa evaluaciones manuales
     @PostMapping("/{id}/complete")
     @PreAuthorize("hasAnyRole('ANALISTA', 'ADMIN')")
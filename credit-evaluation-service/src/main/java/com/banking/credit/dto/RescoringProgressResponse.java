@@ -0,0 +1,24 @@
+package com.banking.credit.dto;
+
+import com.banking.credit.enums.RescoringStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class RescoringProgressResponse {
+    private Long jobId;
+    private RescoringStatus status;
+    private boolean dryRun;
+    private long totalEvaluations;
+    private long processed;
+    private long changed;
+    private long skipped;
+    private double percent;
+    private Double evaluationsPerSecond; // Solo mientras el job corre en esta instancia
+    private Long etaSeconds;
+    private ScoreDistribution distribution;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,30 @@
+package com.banking.credit.dto;
+
+import com.banking.credit.enums.Recommendation;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Histograma de scores antes y después del re-scoring (tramos de 10 puntos, el último incluye 100)
+// y conteo de cambios de recomendación, ej. "APPROVE->MANUAL_REVIEW"
+@Data
+public class ScoreDistribution {
+    private static final int BUCKETS = 10;
+
+    private long[] previousScores = new long[BUCKETS];
+    private long[] newScores = new long[BUCKETS];
+    private Map<String, Long> recommendationChanges = new TreeMap<>();
+
+    public void record(int previousScore, Recommendation previous, int newScore, Recommendation current) {
+        previousScores[bucket(previousScore)]++;
+        newScores[bucket(newScore)]++;
+        if (previous != current) {
+            recommendationChanges.merge(previous + "->" + current, 1L, Long::sum);
+        }
+    }
+
+    private static int bucket(int score) {
+        return Math.max(0, Math.min(BUCKETS - 1, score / 10));
+    }
+}
@@ -13,7 +13,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "credit_evaluations")
+@Table(name = "credit_evaluations", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_evaluation_loan", columnNames = "loan_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,5 +1,6 @@
 package com.banking.credit.entity;
 
+import com.banking.credit.enums.ScoringFactor;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -36,6 +37,21 @@ public class EvaluationCriteria {
 
     private Boolean active = true;
 
+    // Reglas del scorecard. En filas sin configurar se usan los tramos por defecto del factor
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private ScoringFactor factor; // null en filas antiguas: se deduce del nombre
+
+    @Column(length = 255)
+    private String thresholds; // Cortes ascendentes separados por coma, ej. "1500,3000,5000,10000"
+
+    @Column(length = 255)
+    private String bandScores; // Un puntaje por tramo (cortes + 1), ej. "10,30,50,70,100"
+
+    private Boolean upperInclusive; // true: un valor igual al corte cae en el tramo inferior
+
+    private Integer missingScore; // Puntaje cuando el dato no está disponible
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 }
\ No newline at end of file
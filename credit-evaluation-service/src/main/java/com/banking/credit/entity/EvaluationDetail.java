@@ -9,7 +9,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "evaluation_details")
+@Table(name = "evaluation_details", indexes = {
+        @Index(name = "idx_detail_evaluation", columnList = "evaluation_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,9 +23,9 @@ public class EvaluationDetail {
     @Column(nullable = false)
     private Long evaluationId;
 
-    @ManyToOne
-    @JoinColumn(name = "criteria_id", nullable = false)
-    private EvaluationCriteria criteria;
+    // Solo el ID: leer o guardar un detalle no carga el criterio
+    @Column(name = "criteria_id", nullable = false)
+    private Long criteriaId;
 
     @Column(nullable = false)
     private Integer score;
@@ -0,0 +1,64 @@
+package com.banking.credit.entity;
+
+import com.banking.credit.enums.RescoringStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+// Ejecución del re-scoring masivo. lastProcessedId permite reanudar tras un reinicio.
+// activeSlot vale 1 solo en el job RUNNING: la clave única impide dos jobs en curso a la vez
+@Entity
+@Table(name = "rescoring_jobs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rescoring_active", columnNames = "active_slot")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RescoringJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Boolean dryRun;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RescoringStatus status = RescoringStatus.PENDING;
+
+    @Column(nullable = false)
+    private Long lastProcessedId = 0L;
+
+    private Long totalEvaluations = 0L;
+
+    private Long processed = 0L;
+
+    private Long changed = 0L;
+
+    private Long skipped = 0L; // Evaluaciones sin datos del cliente disponibles
+
+    @Column(columnDefinition = "TEXT")
+    private String distribution; // ScoreDistribution en JSON
+
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+
+    private Integer activeSlot;
+
+    @Column(length = 64)
+    private String claimedBy; // Instancia que lo ejecuta
+
+    private LocalDateTime leaseUntil; // Se renueva con cada bloque confirmado
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.banking.credit.enums;
+
+public enum RescoringStatus {
+    PENDING,   // Creado, aún sin tomar por ninguna instancia
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.banking.credit.enums;
+
+public enum ScoringFactor {
+    INCOME,             // Ingreso mensual
+    CREDIT_HISTORY,     // Historial crediticio (los tramos aplican sobre el credit score del buró)
+    PAYMENT_CAPACITY,   // Relación deuda / ingreso
+    WORK_EXPERIENCE     // Años de antigüedad laboral
+}
@@ -3,7 +3,9 @@ package com.banking.credit.repository;
 import com.banking.credit.entity.CreditEvaluation;
 import com.banking.credit.enums.EvaluationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,5 +13,8 @@ public interface CreditEvaluationRepository extends JpaRepository<CreditEvaluati
     Optional<CreditEvaluation> findByLoanId(Long loanId);
     List<CreditEvaluation> findByCustomerId(Long customerId);
     List<CreditEvaluation> findByStatus(EvaluationStatus status);
+
+    @Query("SELECT e.loanId FROM CreditEvaluation e WHERE e.loanId IN :loanIds")
+    List<Long> findEvaluatedLoanIds(Collection<Long> loanIds);
 }
 
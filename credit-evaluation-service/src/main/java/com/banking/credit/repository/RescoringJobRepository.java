@@ -0,0 +1,11 @@
+package com.banking.credit.repository;
+
+import com.banking.credit.entity.RescoringJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface RescoringJobRepository extends JpaRepository<RescoringJob, Long> {
+    Optional<RescoringJob> findFirstByDryRunOrderByIdDesc(Boolean dryRun);
+    Optional<RescoringJob> findFirstByOrderByIdDesc();
+}
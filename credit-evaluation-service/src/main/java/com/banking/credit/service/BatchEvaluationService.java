@@ -0,0 +1,170 @@
+package com.banking.credit.service;
+
+import com.banking.credit.dto.EvaluationRequest;
+import com.banking.credit.enums.EvaluationStatus;
+import com.banking.credit.enums.Recommendation;
+import com.banking.credit.enums.RiskLevel;
+import com.banking.credit.event.EvaluationCompletedEvent;
+import com.banking.credit.repository.CreditEvaluationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Evaluación automática de varios préstamos a la vez: perfiles en consultas masivas, scoring en
+// paralelo contra el mismo scorecard, inserts JDBC por lotes y eventos enviados tras el commit.
+@Service
+@Slf4j
+public class BatchEvaluationService {
+
+    private static final String EVALUATION_COMPLETED_TOPIC = "evaluation-completed";
+
+    private static final String INSERT_EVALUATION_SQL =
+            "INSERT INTO credit_evaluations (customer_id, loan_id, automatic_score, final_score, status, " +
+            "recommendation, risk_level, evaluation_date, completed_date, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final CreditEvaluationRepository evaluationRepository;
+    private final CreditScoringService scoringService;
+    private final CustomerProfileService profileService;
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public BatchEvaluationService(CreditEvaluationRepository evaluationRepository,
+                                  CreditScoringService scoringService,
+                                  CustomerProfileService profileService,
+                                  JdbcTemplate jdbcTemplate,
+                                  KafkaTemplate<String, Object> kafkaTemplate,
+                                  PlatformTransactionManager transactionManager) {
+        this.evaluationRepository = evaluationRepository;
+        this.scoringService = scoringService;
+        this.profileService = profileService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private record ScoredLoan(EvaluationRequest request, Scorecard.Result result,
+                              Recommendation recommendation, RiskLevel riskLevel) {
+
+        boolean needsReview() {
+            return recommendation == Recommendation.MANUAL_REVIEW;
+        }
+    }
+
+    // Devuelve cuántas evaluaciones se crearon; los préstamos ya evaluados se ignoran
+    public int evaluateAll(List<EvaluationRequest> requests) {
+        Map<Long, EvaluationRequest> byLoan = new LinkedHashMap<>();
+        requests.forEach(request -> byLoan.putIfAbsent(request.getLoanId(), request));
+        evaluationRepository.findEvaluatedLoanIds(byLoan.keySet()).forEach(byLoan::remove);
+        if (byLoan.isEmpty()) {
+            return 0;
+        }
+
+        // Fuera de la transacción: las llamadas a customer-service no retienen la conexión
+        Map<Long, CustomerProfileService.CustomerProfile> profiles = profileService.getProfiles(
+                byLoan.values().stream().map(EvaluationRequest::getCustomerId).collect(Collectors.toSet()));
+        Scorecard scorecard = scoringService.getScorecard();
+
+        List<ScoredLoan> scored = byLoan.values().parallelStream()
+                .filter(request -> {
+                    if (!profiles.containsKey(request.getCustomerId())) {
+                        log.error("Sin datos del cliente {} para evaluar el préstamo {}",
+                                request.getCustomerId(), request.getLoanId());
+                        return false;
+                    }
+                    return true;
+                })
+                .map(request -> {
+                    CustomerProfileService.CustomerProfile profile = profiles.get(request.getCustomerId());
+                    Scorecard.Result result = scorecard.evaluate(profile.customer(), profile.history());
+                    return new ScoredLoan(request, result,
+                            scoringService.getRecommendation(result.totalScore()),
+                            scoringService.getRiskLevel(result.totalScore()));
+                })
+                .toList();
+        if (scored.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> evaluationIds = transactionTemplate.execute(status -> {
+            List<Long> ids = insertEvaluations(scored, now);
+            scoringService.saveDetails(ids, scored.stream().map(ScoredLoan::result).toList());
+            return ids;
+        });
+
+        // Tras el commit: los envíos se agrupan en batches del productor y se esperan al final
+        for (int i = 0; i < scored.size(); i++) {
+            ScoredLoan loan = scored.get(i);
+            if (!loan.needsReview()) {
+                kafkaTemplate.send(EVALUATION_COMPLETED_TOPIC, new EvaluationCompletedEvent(
+                        evaluationIds.get(i),
+                        loan.request().getLoanId(),
+                        loan.request().getCustomerId(),
+                        loan.result().totalScore(),
+                        loan.recommendation(),
+                        now));
+            }
+        }
+        kafkaTemplate.flush();
+
+        log.info("Evaluaciones automáticas en lote: {} creadas de {} eventos", scored.size(), requests.size());
+        return scored.size();
+    }
+
+    private List<Long> insertEvaluations(List<ScoredLoan> scored, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_EVALUATION_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ScoredLoan loan = scored.get(i);
+                        int score = loan.result().totalScore();
+
+                        ps.setLong(1, loan.request().getCustomerId());
+                        ps.setLong(2, loan.request().getLoanId());
+                        ps.setInt(3, score);
+                        ps.setInt(4, score);
+                        // Mismo criterio que la evaluación individual
+                        ps.setString(5, loan.needsReview()
+                                ? EvaluationStatus.IN_REVIEW.name()
+                                : EvaluationStatus.APPROVED.name());
+                        ps.setString(6, loan.recommendation().name());
+                        ps.setString(7, loan.riskLevel().name());
+                        ps.setTimestamp(8, timestamp);
+                        ps.setTimestamp(9, loan.needsReview() ? null : timestamp);
+                        ps.setTimestamp(10, timestamp);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return scored.size();
+                    }
+                },
+                keyHolder);
+
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+}
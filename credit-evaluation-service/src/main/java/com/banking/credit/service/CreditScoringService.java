@@ -1,121 +1,88 @@
 package com.banking.credit.service;
 
-import com.banking.credit.client.CustomerClient;
-import com.banking.credit.dto.CreditHistoryResponse;
-import com.banking.credit.dto.CustomerResponse;
-import com.banking.credit.entity.EvaluationCriteria;
-import com.banking.credit.entity.EvaluationDetail;
 import com.banking.credit.enums.Recommendation;
 import com.banking.credit.enums.RiskLevel;
 import com.banking.credit.repository.EvaluationCriteriaRepository;
-import com.banking.credit.repository.EvaluationDetailRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CreditScoringService {
 
-    private final CustomerClient customerClient;
-    private final EvaluationCriteriaRepository criteriaRepository;
-    private final EvaluationDetailRepository detailRepository;
-
-    public int calculateAutomaticScore(Long customerId, Long evaluationId) {
-        CustomerResponse customer = customerClient.getCustomerById(customerId);
-        CreditHistoryResponse history = customerClient.getCreditHistory(customerId);
-
-        List<EvaluationCriteria> criteria = criteriaRepository.findByActiveTrue();
-        List<EvaluationDetail> details = new ArrayList<>();
-
-        BigDecimal totalScore = BigDecimal.ZERO;
-
-        for (EvaluationCriteria criterion : criteria) {
-            int score = calculateCriteriaScore(criterion, customer, history);
-            BigDecimal weightedScore = BigDecimal.valueOf(score)
-                    .multiply(criterion.getWeight())
-                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    private static final String INSERT_DETAIL_SQL =
+            "INSERT INTO evaluation_details (evaluation_id, criteria_id, score, created_at) VALUES (?, ?, ?, ?)";
 
-            totalScore = totalScore.add(weightedScore);
-
-            EvaluationDetail detail = new EvaluationDetail();
-            detail.setEvaluationId(evaluationId);
-            detail.setCriteria(criterion);
-            detail.setScore(score);
-            details.add(detail);
-        }
+    private final CustomerProfileService profileService;
+    private final EvaluationCriteriaRepository criteriaRepository;
+    private final JdbcTemplate jdbcTemplate;
 
-        detailRepository.saveAll(details);
+    // Se reemplaza completo al cambiar los criterios; las evaluaciones en curso terminan con el anterior
+    private volatile Scorecard scorecard;
 
-        return totalScore.intValue();
+    // Solo calcula: la evaluación y sus detalles se guardan después, ya completos
+    public Scorecard.Result calculateAutomaticScore(Long customerId) {
+        CustomerProfileService.CustomerProfile profile = profileService.getProfile(customerId);
+        return getScorecard().evaluate(profile.customer(), profile.history());
     }
 
-    private int calculateCriteriaScore(EvaluationCriteria criterion,
-                                       CustomerResponse customer,
-                                       CreditHistoryResponse history) {
-        return switch (criterion.getName()) {
-            case "Ingresos Mensuales" -> scoreIncome(customer.getMonthlyIncome());
-            case "Historial Crediticio" -> scoreCreditHistory(history);
-            case "Capacidad de Pago" -> scorePaymentCapacity(customer, history);
-            case "Antigüedad Laboral" -> scoreWorkExperience(customer.getWorkExperienceYears());
-            default -> 50;
-        };
+    // Detalle por criterio de una o varias evaluaciones, en un único batch JDBC
+    public void saveDetails(List<Long> evaluationIds, List<Scorecard.Result> results) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        for (int i = 0; i < evaluationIds.size(); i++) {
+            Scorecard.Result result = results.get(i);
+            for (int c = 0; c < result.scores().length; c++) {
+                args.add(new Object[]{evaluationIds.get(i), result.criteriaIds()[c], result.scores()[c], now});
+            }
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DETAIL_SQL, args);
+        }
     }
 
-    private int scoreIncome(BigDecimal income) {
-        if (income == null) return 0;
-        if (income.compareTo(BigDecimal.valueOf(10000)) >= 0) return 100;
-        if (income.compareTo(BigDecimal.valueOf(5000)) >= 0) return 70;
-        if (income.compareTo(BigDecimal.valueOf(3000)) >= 0) return 50;
-        if (income.compareTo(BigDecimal.valueOf(1500)) >= 0) return 30;
-        return 10;
+    public Scorecard getScorecard() {
+        Scorecard current = scorecard;
+        return current != null ? current : refresh();
     }
 
-    private int scoreCreditHistory(CreditHistoryResponse history) {
-        int score = 50;
-
-        // Préstamos completados suman
-        score += Math.min(history.getCompletedLoans() * 15, 30);
-
-        // Préstamos en mora restan
-        score -= history.getDefaultedLoans() * 25;
-
-        // Credit score influye
-        if (history.getCreditScore() != null) {
-            if (history.getCreditScore() >= 750) score += 20;
-            else if (history.getCreditScore() >= 650) score += 10;
-            else if (history.getCreditScore() < 550) score -= 20;
+    // Recompila desde evaluation_criteria; si una regla es inválida se conserva el scorecard vigente
+    public synchronized Scorecard refresh() {
+        Scorecard compiled = Scorecard.compile(criteriaRepository.findByActiveTrue());
+        Scorecard current = scorecard;
+        if (current == null || !current.signature().equals(compiled.signature())) {
+            scorecard = compiled;
+            log.info("Scorecard compilado con {} criterios activos", compiled.size());
+            return compiled;
         }
-
-        return Math.max(0, Math.min(100, score));
+        return current;
     }
 
-    private int scorePaymentCapacity(CustomerResponse customer, CreditHistoryResponse history) {
-        if (customer.getMonthlyIncome() == null || customer.getMonthlyIncome().compareTo(BigDecimal.ZERO) == 0) {
-            return 0;
-        }
-
-        BigDecimal debtToIncome = history.getTotalDebt()
-                .divide(customer.getMonthlyIncome(), 4, RoundingMode.HALF_UP);
-
-        if (debtToIncome.compareTo(BigDecimal.valueOf(0.30)) <= 0) return 100;
-        if (debtToIncome.compareTo(BigDecimal.valueOf(0.40)) <= 0) return 70;
-        if (debtToIncome.compareTo(BigDecimal.valueOf(0.50)) <= 0) return 40;
-        if (debtToIncome.compareTo(BigDecimal.valueOf(0.60)) <= 0) return 20;
-        return 0;
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
     }
 
-    private int scoreWorkExperience(Integer years) {
-        if (years == null) return 0;
-        if (years >= 10) return 100;
-        if (years >= 5) return 75;
-        if (years >= 3) return 50;
-        if (years >= 1) return 25;
-        return 10;
+    // Los criterios se editan directamente en base de datos: se revisan periódicamente
+    @Scheduled(fixedDelayString = "${credit.scorecard.refresh-interval-ms:60000}",
+            initialDelayString = "${credit.scorecard.refresh-interval-ms:60000}")
+    public void refreshPeriodically() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("No se pudo recompilar el scorecard, se mantiene el vigente: {}", e.getMessage());
+        }
     }
 
     public Recommendation getRecommendation(int score) {
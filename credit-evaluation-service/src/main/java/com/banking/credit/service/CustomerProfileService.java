@@ -0,0 +1,120 @@
+package com.banking.credit.service;
+
+import com.banking.credit.client.CustomerClient;
+import com.banking.credit.dto.CreditHistoryResponse;
+import com.banking.credit.dto.CustomerResponse;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Datos del cliente que necesita el scoring. Las dos consultas a customer-service salen a la vez
+// en hilos virtuales, cada una con su timeout y detrás del mismo circuit breaker.
+@Service
+@Slf4j
+public class CustomerProfileService {
+
+    private static final String CIRCUIT_BREAKER = "customer-service";
+
+    private final CustomerClient customerClient;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${credit.customer.timeout-ms:2000}")
+    private long timeoutMs;
+
+    // Igual al máximo que acepta customer-service por consulta masiva
+    @Value("${credit.customer.batch-size:500}")
+    private int batchSize;
+
+    public CustomerProfileService(CustomerClient customerClient,
+                                  CircuitBreakerRegistry circuitBreakerRegistry,
+                                  MeterRegistry meterRegistry) {
+        this.customerClient = customerClient;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public record CustomerProfile(CustomerResponse customer, CreditHistoryResponse history) {}
+
+    public CustomerProfile getProfile(Long customerId) {
+        CompletableFuture<CustomerResponse> customer =
+                fetch("customer", () -> customerClient.getCustomerById(customerId));
+        CompletableFuture<CreditHistoryResponse> history =
+                fetch("credit-history", () -> customerClient.getCreditHistory(customerId));
+
+        try {
+            return customer.thenCombine(history, CustomerProfile::new).join();
+        } catch (CompletionException e) {
+            log.error("No se pudo obtener el perfil del cliente {}: {}", customerId, e.getCause().toString());
+            throw new RuntimeException("Servicio de clientes no disponible", e.getCause());
+        }
+    }
+
+    // Perfiles de varios clientes: por cada lote, una consulta masiva de clientes y otra de
+    // historiales, ambas en paralelo. Los clientes sin datos completos no aparecen en el resultado.
+    public Map<Long, CustomerProfile> getProfiles(Collection<Long> customerIds) {
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(customerIds));
+        List<CompletableFuture<List<CustomerResponse>>> customerChunks = new ArrayList<>();
+        List<CompletableFuture<List<CreditHistoryResponse>>> historyChunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            customerChunks.add(fetch("customer-batch", () -> customerClient.getCustomersByIds(chunk)));
+            historyChunks.add(fetch("credit-history-batch", () -> customerClient.getCreditHistories(chunk)));
+        }
+
+        Map<Long, CustomerResponse> customers = new HashMap<>();
+        Map<Long, CreditHistoryResponse> histories = new HashMap<>();
+        try {
+            customerChunks.forEach(f -> f.join().forEach(c -> customers.put(c.getId(), c)));
+            historyChunks.forEach(f -> f.join().forEach(h -> histories.put(h.getCustomerId(), h)));
+        } catch (CompletionException e) {
+            log.error("No se pudieron obtener los perfiles de {} clientes: {}", ids.size(), e.getCause().toString());
+            throw new RuntimeException("Servicio de clientes no disponible", e.getCause());
+        }
+
+        Map<Long, CustomerProfile> profiles = new HashMap<>();
+        customers.forEach((id, customer) -> {
+            CreditHistoryResponse history = histories.get(id);
+            if (history != null) {
+                profiles.put(id, new CustomerProfile(customer, history));
+            }
+        });
+        return profiles;
+    }
+
+    private <T> CompletableFuture<T> fetch(String leg, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return circuitBreaker.executeCompletionStage(() -> CompletableFuture.supplyAsync(call, executor)
+                        .orTimeout(timeoutMs, TimeUnit.MILLISECONDS))
+                .toCompletableFuture()
+                .whenComplete((result, ex) -> sample.stop(Timer.builder("credit.customer.fetch")
+                        .tag("leg", leg)
+                        .tag("outcome", ex == null ? "success" : "error")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
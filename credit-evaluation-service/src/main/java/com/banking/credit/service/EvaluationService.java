@@ -8,6 +8,7 @@ import com.banking.credit.event.EvaluationCompletedEvent;
 import com.banking.credit.repository.CreditEvaluationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,24 +28,13 @@ public class EvaluationService {
 
     @Transactional
     public EvaluationResponse createEvaluation(EvaluationRequest request) {
-        // Verificar si ya existe evaluación
-        if (evaluationRepository.findByLoanId(request.getLoanId()).isPresent()) {
-            throw new RuntimeException("Ya existe una evaluación para este préstamo");
-        }
+        // Calcular score automático antes de tocar la base: la evaluación se inserta ya completa
+        Scorecard.Result result = scoringService.calculateAutomaticScore(request.getCustomerId());
+        int automaticScore = result.totalScore();
 
         CreditEvaluation evaluation = new CreditEvaluation();
         evaluation.setCustomerId(request.getCustomerId());
         evaluation.setLoanId(request.getLoanId());
-        evaluation.setStatus(EvaluationStatus.PENDING);
-
-        evaluation = evaluationRepository.save(evaluation);
-
-        // Calcular score automático
-        int automaticScore = scoringService.calculateAutomaticScore(
-                request.getCustomerId(),
-                evaluation.getId()
-        );
-
         evaluation.setAutomaticScore(automaticScore);
         evaluation.setFinalScore(automaticScore);
         evaluation.setRecommendation(scoringService.getRecommendation(automaticScore));
@@ -56,13 +46,21 @@ public class EvaluationService {
         } else {
             evaluation.setStatus(EvaluationStatus.APPROVED);
             evaluation.setCompletedDate(LocalDateTime.now());
+        }
+
+        // La restricción única sobre loan_id reemplaza la consulta previa por préstamo
+        try {
+            evaluation = evaluationRepository.saveAndFlush(evaluation);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Ya existe una evaluación para este préstamo");
+        }
+        scoringService.saveDetails(List.of(evaluation.getId()), List.of(result));
 
+        if (evaluation.getStatus() == EvaluationStatus.APPROVED) {
             // Publicar evento
             publishEvaluationCompleted(evaluation);
         }
 
-        evaluation = evaluationRepository.save(evaluation);
-
         return mapToResponse(evaluation);
     }
 
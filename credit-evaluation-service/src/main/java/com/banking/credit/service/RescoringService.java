@@ -0,0 +1,383 @@
+package com.banking.credit.service;
+
+import com.banking.credit.dto.RescoringProgressResponse;
+import com.banking.credit.dto.ScoreDistribution;
+import com.banking.credit.entity.RescoringJob;
+import com.banking.credit.enums.Recommendation;
+import com.banking.credit.enums.RescoringStatus;
+import com.banking.credit.enums.RiskLevel;
+import com.banking.credit.repository.RescoringJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+// Re-scoring de todas las evaluaciones con el scorecard vigente. Recorre credit_evaluations por
+// bloques (keyset sobre id), puntúa cada bloque en un ForkJoinPool y escribe con batches JDBC;
+// el avance se guarda en rescoring_jobs junto con las escrituras del bloque, así que un job
+// interrumpido se reanuda desde el último bloque confirmado. En modo dry-run no se escribe
+// ninguna evaluación: solo se acumula la distribución de scores anterior y nueva.
+// Solo se re-puntúan evaluaciones sin decidir (PENDING o IN_REVIEW): las APPROVED o REJECTED ya
+// las usó loan-service y conservan el score y la recomendación con que se decidieron.
+// Solo un job corre a la vez en todo el cluster: se toma con un UPDATE condicional sobre su fila
+// (uk_rescoring_active) y con un lease que se renueva en cada bloque.
+@Service
+@Slf4j
+public class RescoringService {
+
+    private static final String UNDECIDED = "status IN ('PENDING', 'IN_REVIEW')";
+
+    private static final String SELECT_CHUNK_SQL =
+            "SELECT id, customer_id, automatic_score, manual_score, final_score, recommendation " +
+            "FROM credit_evaluations WHERE id > ? AND automatic_score IS NOT NULL AND " + UNDECIDED +
+            " ORDER BY id LIMIT ?";
+
+    private static final String COUNT_SQL =
+            "SELECT COUNT(*) FROM credit_evaluations WHERE automatic_score IS NOT NULL AND " + UNDECIDED;
+
+    // Bloquea las que siguen sin decidir: una revisión manual completada después de leer el bloque
+    // espera a este commit o, si llegó antes, su evaluación queda fuera
+    private static final String LOCK_UNDECIDED_SQL =
+            "SELECT id FROM credit_evaluations WHERE id IN (%s) AND " + UNDECIDED + " FOR UPDATE";
+
+    private static final String UPDATE_EVALUATION_SQL =
+            "UPDATE credit_evaluations SET automatic_score = ?, final_score = ?, recommendation = ?, " +
+            "risk_level = ?, updated_at = ? WHERE id = ? AND " + UNDECIDED;
+
+    private static final String DELETE_DETAILS_SQL =
+            "DELETE FROM evaluation_details WHERE evaluation_id = ?";
+
+    // Jobs cuya instancia dejó de renovar el lease (caída, reinicio): quedan reanudables
+    private static final String EXPIRE_SQL =
+            "UPDATE rescoring_jobs SET status = 'FAILED', active_slot = NULL, " +
+            "error_message = 'Lease vencido: la instancia que lo ejecutaba dejó de responder', " +
+            "finished_at = ?, updated_at = ? WHERE status = 'RUNNING' AND (lease_until IS NULL OR lease_until < ?)";
+
+    private static final String CLAIM_SQL =
+            "UPDATE rescoring_jobs SET status = 'RUNNING', active_slot = 1, claimed_by = ?, lease_until = ?, " +
+            "error_message = NULL, finished_at = NULL, updated_at = ? " +
+            "WHERE id = ? AND status IN ('PENDING', 'FAILED')";
+
+    private static final String PROGRESS_SQL =
+            "UPDATE rescoring_jobs SET last_processed_id = ?, processed = ?, changed = ?, skipped = ?, " +
+            "distribution = ?, lease_until = ?, updated_at = ? WHERE id = ? AND claimed_by = ? AND status = 'RUNNING'";
+
+    private static final String FINISH_SQL =
+            "UPDATE rescoring_jobs SET status = ?, active_slot = NULL, error_message = ?, finished_at = ?, " +
+            "updated_at = ? WHERE id = ? AND claimed_by = ? AND status = 'RUNNING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RescoringJobRepository jobRepository;
+    private final CreditScoringService scoringService;
+    private final CustomerProfileService profileService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor();
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Ritmo de la ejecución en curso, para estimar el tiempo restante
+    private volatile Long currentJobId;
+    private volatile long runStartNanos;
+    private volatile long processedAtStart;
+
+    @Value("${credit.rescoring.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${credit.rescoring.parallelism:4}")
+    private int parallelism;
+
+    // Más largo que el bloque más lento; si vence, otra instancia puede reanudar el job
+    @Value("${credit.rescoring.lease-seconds:600}")
+    private long leaseSeconds;
+
+    public RescoringService(JdbcTemplate jdbcTemplate,
+                            RescoringJobRepository jobRepository,
+                            CreditScoringService scoringService,
+                            CustomerProfileService profileService,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobRepository = jobRepository;
+        this.scoringService = scoringService;
+        this.profileService = profileService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private record EvaluationRow(long id, long customerId, int automaticScore, Integer manualScore,
+                                 int finalScore, Recommendation recommendation) {}
+
+    private record Rescored(EvaluationRow row, Scorecard.Result result, int finalScore,
+                            Recommendation recommendation, RiskLevel riskLevel) {
+
+        boolean changed() {
+            return result.totalScore() != row.automaticScore() || recommendation != row.recommendation();
+        }
+    }
+
+    // Inicia un job, o reanuda el último del mismo modo si quedó interrumpido o falló
+    public RescoringProgressResponse start(boolean dryRun) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.update(EXPIRE_SQL, timestamp, timestamp, timestamp);
+
+        RescoringJob job = jobRepository.findFirstByDryRunOrderByIdDesc(dryRun)
+                .filter(last -> last.getStatus() != RescoringStatus.COMPLETED)
+                .orElseGet(() -> newJob(dryRun));
+        if (!claim(job.getId(), now)) {
+            throw new RuntimeException("Ya hay un re-scoring en curso");
+        }
+        if (job.getProcessed() > 0) {
+            log.info("Reanudando re-scoring {} desde la evaluación {}", job.getId(), job.getLastProcessedId());
+        }
+
+        // Solo para la respuesta: la fila ya quedó en RUNNING con el UPDATE condicional
+        job.setStatus(RescoringStatus.RUNNING);
+        job.setErrorMessage(null);
+        job.setFinishedAt(null);
+        currentJobId = job.getId();
+        runStartNanos = System.nanoTime();
+        processedAtStart = job.getProcessed();
+        runner.submit(() -> run(job));
+        return toProgress(job);
+    }
+
+    public RescoringProgressResponse getProgress(Long jobId) {
+        RescoringJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Job de re-scoring no encontrado"));
+        return toProgress(job);
+    }
+
+    public RescoringProgressResponse getLatestProgress() {
+        RescoringJob job = jobRepository.findFirstByOrderByIdDesc()
+                .orElseThrow(() -> new RuntimeException("No hay jobs de re-scoring"));
+        return toProgress(job);
+    }
+
+    private RescoringJob newJob(boolean dryRun) {
+        RescoringJob job = new RescoringJob();
+        job.setDryRun(dryRun);
+        job.setStatus(RescoringStatus.PENDING);
+        job.setTotalEvaluations(jdbcTemplate.queryForObject(COUNT_SQL, Long.class));
+        job.setDistribution(writeDistribution(new ScoreDistribution()));
+        job.setStartedAt(LocalDateTime.now());
+        return jobRepository.save(job);
+    }
+
+    // Falso si el job ya está en curso (en esta u otra instancia) o terminó
+    private boolean claim(Long jobId, LocalDateTime now) {
+        try {
+            return jdbcTemplate.update(CLAIM_SQL, instanceId, Timestamp.valueOf(now.plusSeconds(leaseSeconds)),
+                    Timestamp.valueOf(now), jobId) == 1;
+        } catch (DuplicateKeyException e) {
+            // uk_rescoring_active: otro job tiene el único lugar de ejecución
+            return false;
+        }
+    }
+
+    // El avance vive en variables locales y solo llega a la fila dentro de la transacción de cada
+    // bloque; así lo que queda en rescoring_jobs es siempre el último bloque confirmado
+    private void run(RescoringJob job) {
+        long lastProcessedId = job.getLastProcessedId();
+        long processed = job.getProcessed();
+        long skipped = job.getSkipped();
+        long changed = job.getChanged();
+        String distribution = job.getDistribution();
+
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            // Mismo scorecard para todo el job aunque los criterios cambien mientras corre
+            Scorecard scorecard = scoringService.refresh();
+
+            List<EvaluationRow> chunk = loadChunk(lastProcessedId);
+            while (!chunk.isEmpty()) {
+                Map<Long, CustomerProfileService.CustomerProfile> profiles = profileService.getProfiles(
+                        chunk.stream().map(EvaluationRow::customerId).collect(Collectors.toSet()));
+
+                List<EvaluationRow> rows = chunk;
+                List<Rescored> rescored = pool.submit(() -> rows.parallelStream()
+                        .map(row -> rescore(row, profiles.get(row.customerId()), scorecard))
+                        .filter(Objects::nonNull)
+                        .toList()).join();
+
+                ScoreDistribution chunkDistribution = readDistribution(distribution);
+                rescored.forEach(r -> chunkDistribution.record(r.row().finalScore(), r.row().recommendation(),
+                        r.finalScore(), r.recommendation()));
+                String nextDistribution = writeDistribution(chunkDistribution);
+                long nextLastProcessedId = chunk.getLast().id();
+                long nextProcessed = processed + chunk.size();
+                long nextSkipped = skipped + chunk.size() - rescored.size();
+                long nextChanged = changed + rescored.stream().filter(Rescored::changed).count();
+
+                // Escrituras del bloque y avance del job en la misma transacción; si otra instancia
+                // tomó el job (lease vencido) el UPDATE no encuentra la fila y el bloque se descarta
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!job.getDryRun()) {
+                        writeChunk(rescored.stream().filter(Rescored::changed).toList());
+                    }
+                    LocalDateTime now = LocalDateTime.now();
+                    int updated = jdbcTemplate.update(PROGRESS_SQL, nextLastProcessedId, nextProcessed,
+                            nextChanged, nextSkipped, nextDistribution,
+                            Timestamp.valueOf(now.plusSeconds(leaseSeconds)), Timestamp.valueOf(now),
+                            job.getId(), instanceId);
+                    if (updated != 1) {
+                        throw new RuntimeException(
+                                "El job de re-scoring " + job.getId() + " ya no pertenece a esta instancia");
+                    }
+                });
+
+                distribution = nextDistribution;
+                lastProcessedId = nextLastProcessedId;
+                processed = nextProcessed;
+                skipped = nextSkipped;
+                changed = nextChanged;
+
+                chunk = chunk.size() < chunkSize ? List.of() : loadChunk(lastProcessedId);
+            }
+
+            finish(job.getId(), RescoringStatus.COMPLETED, null);
+            log.info("Re-scoring {} terminado: {} evaluaciones, {} con cambios, {} sin datos del cliente{}",
+                    job.getId(), processed, changed, skipped, job.getDryRun() ? " (dry-run)" : "");
+        } catch (Exception e) {
+            // Queda en FAILED con su último bloque confirmado (el que tiene la fila, no este objeto);
+            // el próximo inicio lo reanuda. Si otra instancia ya lo tomó, la fila no se toca
+            log.error("Re-scoring {} detenido en la evaluación {}: {}",
+                    job.getId(), lastProcessedId, e.getMessage(), e);
+            try {
+                finish(job.getId(), RescoringStatus.FAILED, e.getMessage());
+            } catch (Exception finishError) {
+                log.error("No se pudo marcar el re-scoring {} como fallido: {}", job.getId(), finishError.getMessage());
+            }
+        }
+    }
+
+    private void finish(Long jobId, RescoringStatus status, String errorMessage) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (jdbcTemplate.update(FINISH_SQL, status.name(), errorMessage, now, now, jobId, instanceId) == 0) {
+            log.warn("Re-scoring {} ya no pertenece a esta instancia, no se marca como {}", jobId, status);
+        }
+    }
+
+    private Rescored rescore(EvaluationRow row, CustomerProfileService.CustomerProfile profile, Scorecard scorecard) {
+        if (profile == null) {
+            return null;
+        }
+        Scorecard.Result result = scorecard.evaluate(profile.customer(), profile.history());
+        // Con score manual el final sigue siendo el promedio, como al completar la evaluación
+        int finalScore = row.manualScore() != null
+                ? (result.totalScore() + row.manualScore()) / 2
+                : result.totalScore();
+        return new Rescored(row, result, finalScore,
+                scoringService.getRecommendation(finalScore), scoringService.getRiskLevel(finalScore));
+    }
+
+    private List<EvaluationRow> loadChunk(long afterId) {
+        return jdbcTemplate.query(SELECT_CHUNK_SQL, (rs, i) -> new EvaluationRow(
+                rs.getLong("id"),
+                rs.getLong("customer_id"),
+                rs.getInt("automatic_score"),
+                rs.getObject("manual_score", Integer.class),
+                rs.getInt("final_score"),
+                rs.getString("recommendation") != null ? Recommendation.valueOf(rs.getString("recommendation")) : null
+        ), afterId, chunkSize);
+    }
+
+    private void writeChunk(List<Rescored> rescored) {
+        if (rescored.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(rescored.size(), "?"));
+        Set<Long> undecided = new HashSet<>(jdbcTemplate.queryForList(LOCK_UNDECIDED_SQL.formatted(placeholders),
+                Long.class, rescored.stream().map(r -> r.row().id()).toArray()));
+        List<Rescored> changed = rescored.stream().filter(r -> undecided.contains(r.row().id())).toList();
+        if (changed.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(UPDATE_EVALUATION_SQL, changed.stream()
+                .map(r -> new Object[]{r.result().totalScore(), r.finalScore(), r.recommendation().name(),
+                        r.riskLevel().name(), now, r.row().id()})
+                .toList());
+
+        jdbcTemplate.batchUpdate(DELETE_DETAILS_SQL, changed.stream()
+                .map(r -> new Object[]{r.row().id()})
+                .toList());
+
+        scoringService.saveDetails(changed.stream().map(r -> r.row().id()).toList(),
+                changed.stream().map(Rescored::result).toList());
+    }
+
+    private RescoringProgressResponse toProgress(RescoringJob job) {
+        RescoringProgressResponse response = new RescoringProgressResponse();
+        response.setJobId(job.getId());
+        response.setStatus(job.getStatus());
+        response.setDryRun(job.getDryRun());
+        response.setTotalEvaluations(job.getTotalEvaluations());
+        response.setProcessed(job.getProcessed());
+        response.setChanged(job.getChanged());
+        response.setSkipped(job.getSkipped());
+        // El total se toma al iniciar; las evaluaciones nuevas pueden llevar el avance por encima del 100 %
+        response.setPercent(job.getTotalEvaluations() > 0
+                ? Math.min(100.0, job.getProcessed() * 100.0 / job.getTotalEvaluations())
+                : 100.0);
+        response.setDistribution(readDistribution(job.getDistribution()));
+        response.setErrorMessage(job.getErrorMessage());
+        response.setStartedAt(job.getStartedAt());
+        response.setFinishedAt(job.getFinishedAt());
+
+        if (job.getStatus() == RescoringStatus.RUNNING && job.getId().equals(currentJobId)) {
+            double seconds = (System.nanoTime() - runStartNanos) / 1_000_000_000.0;
+            long done = job.getProcessed() - processedAtStart;
+            if (seconds > 0 && done > 0) {
+                double rate = done / seconds;
+                response.setEvaluationsPerSecond(rate);
+                response.setEtaSeconds(Math.round(Math.max(0, job.getTotalEvaluations() - job.getProcessed()) / rate));
+            }
+        }
+        return response;
+    }
+
+    private String writeDistribution(ScoreDistribution distribution) {
+        try {
+            return objectMapper.writeValueAsString(distribution);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializando la distribución de scores", e);
+        }
+    }
+
+    private ScoreDistribution readDistribution(String json) {
+        if (json == null) {
+            return new ScoreDistribution();
+        }
+        try {
+            return objectMapper.readValue(json, ScoreDistribution.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error leyendo la distribución de scores", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+}
@@ -0,0 +1,241 @@
+package com.banking.credit.service;
+
+import com.banking.credit.dto.CreditHistoryResponse;
+import com.banking.credit.dto.CustomerResponse;
+import com.banking.credit.entity.EvaluationCriteria;
+import com.banking.credit.enums.ScoringFactor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Scorecard compilado a partir de evaluation_criteria: cada criterio queda como un arreglo de
+// cortes ordenados y otro de puntajes por tramo. Es inmutable; un cambio de criterios produce
+// una instancia nueva que reemplaza a la anterior de forma atómica.
+public final class Scorecard {
+
+    // Puntaje de criterios activos sin factor reconocible
+    static final int NEUTRAL_SCORE = 50;
+
+    private static final int NO_FACTOR = -1;
+
+    // Filas creadas antes de la columna factor
+    private static final Map<String, ScoringFactor> LEGACY_NAMES = Map.of(
+            "Ingresos Mensuales", ScoringFactor.INCOME,
+            "Historial Crediticio", ScoringFactor.CREDIT_HISTORY,
+            "Capacidad de Pago", ScoringFactor.PAYMENT_CAPACITY,
+            "Antigüedad Laboral", ScoringFactor.WORK_EXPERIENCE
+    );
+
+    // Tramos por defecto: los mismos valores que antes estaban escritos en el código
+    private static final Map<ScoringFactor, Band> DEFAULT_BANDS = new EnumMap<>(Map.of(
+            ScoringFactor.INCOME, new Band(new double[]{1500, 3000, 5000, 10000}, new int[]{10, 30, 50, 70, 100}, false, 0),
+            ScoringFactor.CREDIT_HISTORY, new Band(new double[]{550, 650, 750}, new int[]{-20, 0, 10, 20}, false, 0),
+            ScoringFactor.PAYMENT_CAPACITY, new Band(new double[]{0.30, 0.40, 0.50, 0.60}, new int[]{100, 70, 40, 20, 0}, true, 0),
+            ScoringFactor.WORK_EXPERIENCE, new Band(new double[]{1, 3, 5, 10}, new int[]{10, 25, 50, 75, 100}, false, 0)
+    ));
+
+    // Historial crediticio: base y ajustes por préstamos previos, sobre los que se suma el tramo del buró
+    private static final int HISTORY_BASE = 50;
+    private static final int COMPLETED_LOAN_BONUS = 15;
+    private static final int COMPLETED_LOAN_BONUS_CAP = 30;
+    private static final int DEFAULTED_LOAN_PENALTY = 25;
+
+    private final long[] criteriaIds;
+    private final int[] factors;
+    private final int[] weights; // Peso en centésimas de punto porcentual
+    private final double[][] thresholds;
+    private final int[][] bandScores;
+    private final boolean[] upperInclusive;
+    private final int[] missingScores;
+    private final String signature;
+
+    private Scorecard(long[] criteriaIds, int[] factors, int[] weights, double[][] thresholds,
+                      int[][] bandScores, boolean[] upperInclusive, int[] missingScores, String signature) {
+        this.criteriaIds = criteriaIds;
+        this.factors = factors;
+        this.weights = weights;
+        this.thresholds = thresholds;
+        this.bandScores = bandScores;
+        this.upperInclusive = upperInclusive;
+        this.missingScores = missingScores;
+        this.signature = signature;
+    }
+
+    public record Result(int totalScore, long[] criteriaIds, int[] scores) {}
+
+    private record Band(double[] thresholds, int[] scores, boolean upperInclusive, int missingScore) {}
+
+    public static Scorecard compile(List<EvaluationCriteria> criteria) {
+        List<EvaluationCriteria> ordered = criteria.stream()
+                .sorted(Comparator.comparing(EvaluationCriteria::getId))
+                .toList();
+
+        int size = ordered.size();
+        long[] criteriaIds = new long[size];
+        int[] factors = new int[size];
+        int[] weights = new int[size];
+        double[][] thresholds = new double[size][];
+        int[][] bandScores = new int[size][];
+        boolean[] upperInclusive = new boolean[size];
+        int[] missingScores = new int[size];
+        StringBuilder signature = new StringBuilder();
+
+        for (int i = 0; i < size; i++) {
+            EvaluationCriteria criterion = ordered.get(i);
+            ScoringFactor factor = criterion.getFactor() != null
+                    ? criterion.getFactor()
+                    : LEGACY_NAMES.get(criterion.getName());
+            Band band = resolveBand(criterion, factor);
+
+            criteriaIds[i] = criterion.getId();
+            factors[i] = factor != null ? factor.ordinal() : NO_FACTOR;
+            weights[i] = criterion.getWeight().setScale(2, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+            thresholds[i] = band.thresholds();
+            bandScores[i] = band.scores();
+            upperInclusive[i] = band.upperInclusive();
+            missingScores[i] = band.missingScore();
+
+            signature.append(criteriaIds[i]).append('|').append(factor).append('|').append(weights[i])
+                    .append('|').append(Arrays.toString(band.thresholds()))
+                    .append('|').append(Arrays.toString(band.scores()))
+                    .append('|').append(band.upperInclusive()).append('|').append(band.missingScore()).append(';');
+        }
+        return new Scorecard(criteriaIds, factors, weights, thresholds, bandScores,
+                upperInclusive, missingScores, signature.toString());
+    }
+
+    public Result evaluate(CustomerResponse customer, CreditHistoryResponse history) {
+        double[] inputs = extractInputs(customer, history);
+        int[] scores = new int[criteriaIds.length];
+        long totalHundredths = 0;
+
+        for (int i = 0; i < criteriaIds.length; i++) {
+            int score = scoreCriterion(i, inputs, history);
+            scores[i] = score;
+            // Igual que antes: cada aporte redondeado a 2 decimales y el total truncado a entero
+            totalHundredths += divideHalfUp((long) score * weights[i], 100);
+        }
+        return new Result((int) (totalHundredths / 100), criteriaIds, scores);
+    }
+
+    public String signature() {
+        return signature;
+    }
+
+    public int size() {
+        return criteriaIds.length;
+    }
+
+    private int scoreCriterion(int i, double[] inputs, CreditHistoryResponse history) {
+        if (factors[i] == NO_FACTOR) {
+            return NEUTRAL_SCORE;
+        }
+        double value = inputs[factors[i]];
+        int bandScore = Double.isNaN(value) ? missingScores[i] : bandScores[i][band(thresholds[i], value, upperInclusive[i])];
+
+        if (factors[i] == ScoringFactor.CREDIT_HISTORY.ordinal()) {
+            int score = HISTORY_BASE
+                    + Math.min(orZero(history.getCompletedLoans()) * COMPLETED_LOAN_BONUS, COMPLETED_LOAN_BONUS_CAP)
+                    - orZero(history.getDefaultedLoans()) * DEFAULTED_LOAN_PENALTY
+                    + bandScore;
+            return Math.max(0, Math.min(100, score));
+        }
+        return bandScore;
+    }
+
+    // Cantidad de cortes superados: con upperInclusive un valor igual al corte no lo supera
+    private static int band(double[] cuts, double value, boolean upperInclusive) {
+        int low = 0;
+        int high = cuts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            boolean passed = upperInclusive ? cuts[mid] < value : cuts[mid] <= value;
+            if (passed) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Un valor por factor; NaN cuando el dato no está disponible
+    private static double[] extractInputs(CustomerResponse customer, CreditHistoryResponse history) {
+        double[] inputs = new double[ScoringFactor.values().length];
+        BigDecimal income = customer.getMonthlyIncome();
+        boolean hasIncome = income != null && income.signum() != 0;
+
+        inputs[ScoringFactor.INCOME.ordinal()] = income != null ? income.doubleValue() : Double.NaN;
+        inputs[ScoringFactor.CREDIT_HISTORY.ordinal()] = history.getCreditScore() != null
+                ? history.getCreditScore() : Double.NaN;
+        inputs[ScoringFactor.PAYMENT_CAPACITY.ordinal()] = hasIncome
+                ? orZero(history.getTotalDebt()).divide(income, 4, RoundingMode.HALF_UP).doubleValue()
+                : Double.NaN;
+        inputs[ScoringFactor.WORK_EXPERIENCE.ordinal()] = customer.getWorkExperienceYears() != null
+                ? customer.getWorkExperienceYears() : Double.NaN;
+        return inputs;
+    }
+
+    private static Band resolveBand(EvaluationCriteria criterion, ScoringFactor factor) {
+        Band defaults = factor != null ? DEFAULT_BANDS.get(factor) : null;
+        if (criterion.getThresholds() == null || criterion.getBandScores() == null) {
+            if (defaults == null) {
+                return new Band(new double[0], new int[]{NEUTRAL_SCORE}, false, NEUTRAL_SCORE);
+            }
+            return new Band(defaults.thresholds(), defaults.scores(),
+                    criterion.getUpperInclusive() != null ? criterion.getUpperInclusive() : defaults.upperInclusive(),
+                    criterion.getMissingScore() != null ? criterion.getMissingScore() : defaults.missingScore());
+        }
+
+        double[] cuts = parseDoubles(criterion.getThresholds(), criterion.getName());
+        int[] scores = parseInts(criterion.getBandScores(), criterion.getName());
+        if (scores.length != cuts.length + 1) {
+            throw new RuntimeException("El criterio '" + criterion.getName() + "' debe tener un puntaje más que cortes");
+        }
+        for (int i = 1; i < cuts.length; i++) {
+            if (cuts[i] <= cuts[i - 1]) {
+                throw new RuntimeException("Los cortes del criterio '" + criterion.getName() + "' deben ser ascendentes");
+            }
+        }
+        boolean inclusive = criterion.getUpperInclusive() != null
+                ? criterion.getUpperInclusive()
+                : defaults != null && defaults.upperInclusive();
+        int missing = criterion.getMissingScore() != null ? criterion.getMissingScore() : 0;
+        return new Band(cuts, scores, inclusive, missing);
+    }
+
+    private static double[] parseDoubles(String csv, String name) {
+        try {
+            return Arrays.stream(csv.split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Cortes inválidos en el criterio '" + name + "': " + csv);
+        }
+    }
+
+    private static int[] parseInts(String csv, String name) {
+        try {
+            return Arrays.stream(csv.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Puntajes inválidos en el criterio '" + name + "': " + csv);
+        }
+    }
+
+    // Redondeo HALF_UP (lejos de cero en empates), como BigDecimal
+    private static long divideHalfUp(long numerator, long divisor) {
+        long half = divisor / 2;
+        return numerator >= 0 ? (numerator + half) / divisor : -((-numerator + half) / divisor);
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,262 @@
+package com.banking.credit.service;
+
+import com.banking.credit.dto.CreditHistoryResponse;
+import com.banking.credit.dto.CustomerResponse;
+import com.banking.credit.entity.EvaluationCriteria;
+import com.banking.credit.enums.ScoringFactor;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// El scorecard compilado debe dar exactamente los mismos puntajes que la implementación anterior
+// (switch por nombre con los cortes escritos en el código), que se reproduce aquí como referencia.
+class ScorecardTest {
+
+    private static final BigDecimal[] INCOMES = decimals(null, "0", "800", "1499.99", "1500", "2999.99", "3000",
+            "4999.99", "5000", "9999.99", "10000", "25000");
+    private static final Integer[] WORK_YEARS = {null, 0, 1, 2, 3, 4, 5, 9, 10, 35};
+    private static final Integer[] CREDIT_SCORES = {null, 300, 549, 550, 649, 650, 749, 750, 850};
+    private static final int[] COMPLETED_LOANS = {0, 1, 2, 5};
+    private static final int[] DEFAULTED_LOANS = {0, 1, 3};
+    private static final BigDecimal[] DEBTS = decimals("0", "450", "899.99", "1000", "1234.56", "2000", "7500");
+
+    @Test
+    void legacyCriteriaScoreLikeTheBaseline() {
+        assertEquivalent(List.of(
+                criterion(1L, "Ingresos Mensuales", "30", null),
+                criterion(2L, "Historial Crediticio", "30", null),
+                criterion(3L, "Capacidad de Pago", "25", null),
+                criterion(4L, "Antigüedad Laboral", "15", null)));
+    }
+
+    @Test
+    void factorCriteriaWithDefaultBandsScoreLikeTheBaseline() {
+        // Pesos con decimales para ejercitar el redondeo de cada aporte
+        assertEquivalent(List.of(
+                criterion(10L, "Ingresos", "33.33", ScoringFactor.INCOME),
+                criterion(11L, "Buró", "12.5", ScoringFactor.CREDIT_HISTORY),
+                criterion(12L, "Endeudamiento", "41.17", ScoringFactor.PAYMENT_CAPACITY),
+                criterion(13L, "Experiencia", "13", ScoringFactor.WORK_EXPERIENCE)));
+    }
+
+    @Test
+    void explicitThresholdsEqualToTheDefaultsScoreLikeTheBaseline() {
+        List<EvaluationCriteria> criteria = List.of(
+                criterion(1L, "Ingresos Mensuales", "30", ScoringFactor.INCOME),
+                criterion(2L, "Historial Crediticio", "30", ScoringFactor.CREDIT_HISTORY),
+                criterion(3L, "Capacidad de Pago", "25", ScoringFactor.PAYMENT_CAPACITY),
+                criterion(4L, "Antigüedad Laboral", "15", ScoringFactor.WORK_EXPERIENCE));
+        withBands(criteria.get(0), "1500,3000,5000,10000", "10,30,50,70,100", false);
+        withBands(criteria.get(1), "550,650,750", "-20,0,10,20", false);
+        withBands(criteria.get(2), "0.30,0.40,0.50,0.60", "100,70,40,20,0", true);
+        withBands(criteria.get(3), "1,3,5,10", "10,25,50,75,100", false);
+
+        assertEquivalent(criteria);
+    }
+
+    @Test
+    void unknownCriteriaScoreNeutral() {
+        Scorecard scorecard = Scorecard.compile(List.of(criterion(1L, "Criterio nuevo", "100", null)));
+
+        Scorecard.Result result = scorecard.evaluate(customer(new BigDecimal("5000"), 5), history(700, 1, 0, "0"));
+
+        assertThat(result.scores()).containsExactly(Scorecard.NEUTRAL_SCORE);
+        assertThat(result.totalScore()).isEqualTo(Scorecard.NEUTRAL_SCORE);
+    }
+
+    @Test
+    void resultsFollowCriteriaIdOrder() {
+        Scorecard scorecard = Scorecard.compile(List.of(
+                criterion(7L, "Antigüedad Laboral", "50", null),
+                criterion(3L, "Ingresos Mensuales", "50", null)));
+
+        Scorecard.Result result = scorecard.evaluate(customer(new BigDecimal("10000"), 0), history(700, 0, 0, "0"));
+
+        assertThat(result.criteriaIds()).containsExactly(3L, 7L);
+        assertThat(result.scores()).containsExactly(100, 10);
+        assertThat(result.totalScore()).isEqualTo(55);
+    }
+
+    @Test
+    void signatureChangesWithThresholds() {
+        EvaluationCriteria income = criterion(1L, "Ingresos Mensuales", "100", null);
+        String before = Scorecard.compile(List.of(income)).signature();
+
+        withBands(income, "1000,2000", "0,50,100", false);
+
+        assertThat(Scorecard.compile(List.of(income)).signature()).isNotEqualTo(before);
+    }
+
+    @Test
+    void rejectsInvalidBands() {
+        EvaluationCriteria mismatched = withBands(criterion(1L, "Ingresos Mensuales", "100", null),
+                "1000,2000", "0,100", false);
+        EvaluationCriteria descending = withBands(criterion(2L, "Ingresos Mensuales", "100", null),
+                "2000,1000", "0,50,100", false);
+        EvaluationCriteria malformed = withBands(criterion(3L, "Ingresos Mensuales", "100", null),
+                "mil", "0,100", false);
+
+        assertThatThrownBy(() -> Scorecard.compile(List.of(mismatched))).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> Scorecard.compile(List.of(descending))).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> Scorecard.compile(List.of(malformed))).isInstanceOf(RuntimeException.class);
+    }
+
+    private static void assertEquivalent(List<EvaluationCriteria> criteria) {
+        Scorecard scorecard = Scorecard.compile(criteria);
+        List<EvaluationCriteria> ordered = new ArrayList<>(criteria);
+        ordered.sort((a, b) -> a.getId().compareTo(b.getId()));
+
+        for (BigDecimal income : INCOMES) {
+            for (Integer years : WORK_YEARS) {
+                CustomerResponse customer = customer(income, years);
+                for (Integer creditScore : CREDIT_SCORES) {
+                    for (int completed : COMPLETED_LOANS) {
+                        for (int defaulted : DEFAULTED_LOANS) {
+                            for (BigDecimal debt : DEBTS) {
+                                CreditHistoryResponse history = history(creditScore, completed, defaulted, debt);
+                                Scorecard.Result result = scorecard.evaluate(customer, history);
+
+                                int[] expectedScores = ordered.stream()
+                                        .mapToInt(c -> Baseline.criteriaScore(c, customer, history))
+                                        .toArray();
+                                assertThat(result.scores())
+                                        .as("ingreso=%s años=%s buró=%s completados=%d mora=%d deuda=%s",
+                                                income, years, creditScore, completed, defaulted, debt)
+                                        .containsExactly(expectedScores);
+                                assertThat(result.totalScore())
+                                        .as("ingreso=%s años=%s buró=%s completados=%d mora=%d deuda=%s",
+                                                income, years, creditScore, completed, defaulted, debt)
+                                        .isEqualTo(Baseline.totalScore(ordered, expectedScores));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Copia de CreditScoringService antes del scorecard compilado
+    private static final class Baseline {
+
+        static int totalScore(List<EvaluationCriteria> criteria, int[] scores) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < scores.length; i++) {
+                total = total.add(BigDecimal.valueOf(scores[i])
+                        .multiply(criteria.get(i).getWeight())
+                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP));
+            }
+            return total.intValue();
+        }
+
+        static int criteriaScore(EvaluationCriteria criterion, CustomerResponse customer,
+                                 CreditHistoryResponse history) {
+            ScoringFactor factor = criterion.getFactor();
+            String name = factor == null ? criterion.getName() : switch (factor) {
+                case INCOME -> "Ingresos Mensuales";
+                case CREDIT_HISTORY -> "Historial Crediticio";
+                case PAYMENT_CAPACITY -> "Capacidad de Pago";
+                case WORK_EXPERIENCE -> "Antigüedad Laboral";
+            };
+            return switch (name) {
+                case "Ingresos Mensuales" -> scoreIncome(customer.getMonthlyIncome());
+                case "Historial Crediticio" -> scoreCreditHistory(history);
+                case "Capacidad de Pago" -> scorePaymentCapacity(customer, history);
+                case "Antigüedad Laboral" -> scoreWorkExperience(customer.getWorkExperienceYears());
+                default -> 50;
+            };
+        }
+
+        static int scoreIncome(BigDecimal income) {
+            if (income == null) return 0;
+            if (income.compareTo(BigDecimal.valueOf(10000)) >= 0) return 100;
+            if (income.compareTo(BigDecimal.valueOf(5000)) >= 0) return 70;
+            if (income.compareTo(BigDecimal.valueOf(3000)) >= 0) return 50;
+            if (income.compareTo(BigDecimal.valueOf(1500)) >= 0) return 30;
+            return 10;
+        }
+
+        static int scoreCreditHistory(CreditHistoryResponse history) {
+            int score = 50;
+            score += Math.min(history.getCompletedLoans() * 15, 30);
+            score -= history.getDefaultedLoans() * 25;
+            if (history.getCreditScore() != null) {
+                if (history.getCreditScore() >= 750) score += 20;
+                else if (history.getCreditScore() >= 650) score += 10;
+                else if (history.getCreditScore() < 550) score -= 20;
+            }
+            return Math.max(0, Math.min(100, score));
+        }
+
+        static int scorePaymentCapacity(CustomerResponse customer, CreditHistoryResponse history) {
+            if (customer.getMonthlyIncome() == null || customer.getMonthlyIncome().compareTo(BigDecimal.ZERO) == 0) {
+                return 0;
+            }
+            BigDecimal debtToIncome = history.getTotalDebt()
+                    .divide(customer.getMonthlyIncome(), 4, RoundingMode.HALF_UP);
+            if (debtToIncome.compareTo(BigDecimal.valueOf(0.30)) <= 0) return 100;
+            if (debtToIncome.compareTo(BigDecimal.valueOf(0.40)) <= 0) return 70;
+            if (debtToIncome.compareTo(BigDecimal.valueOf(0.50)) <= 0) return 40;
+            if (debtToIncome.compareTo(BigDecimal.valueOf(0.60)) <= 0) return 20;
+            return 0;
+        }
+
+        static int scoreWorkExperience(Integer years) {
+            if (years == null) return 0;
+            if (years >= 10) return 100;
+            if (years >= 5) return 75;
+            if (years >= 3) return 50;
+            if (years >= 1) return 25;
+            return 10;
+        }
+    }
+
+    private static EvaluationCriteria criterion(Long id, String name, String weight, ScoringFactor factor) {
+        EvaluationCriteria criterion = new EvaluationCriteria();
+        criterion.setId(id);
+        criterion.setName(name);
+        criterion.setWeight(new BigDecimal(weight));
+        criterion.setFactor(factor);
+        return criterion;
+    }
+
+    private static EvaluationCriteria withBands(EvaluationCriteria criterion, String thresholds, String bandScores,
+                                                boolean upperInclusive) {
+        criterion.setThresholds(thresholds);
+        criterion.setBandScores(bandScores);
+        criterion.setUpperInclusive(upperInclusive);
+        return criterion;
+    }
+
+    private static CustomerResponse customer(BigDecimal income, Integer workYears) {
+        CustomerResponse customer = new CustomerResponse();
+        customer.setId(1L);
+        customer.setMonthlyIncome(income);
+        customer.setWorkExperienceYears(workYears);
+        return customer;
+    }
+
+    private static CreditHistoryResponse history(Integer creditScore, int completed, int defaulted, String debt) {
+        return history(creditScore, completed, defaulted, new BigDecimal(debt));
+    }
+
+    private static CreditHistoryResponse history(Integer creditScore, int completed, int defaulted, BigDecimal debt) {
+        CreditHistoryResponse history = new CreditHistoryResponse();
+        history.setCustomerId(1L);
+        history.setCreditScore(creditScore);
+        history.setCompletedLoans(completed);
+        history.setDefaultedLoans(defaulted);
+        history.setTotalDebt(debt);
+        return history;
+    }
+
+    private static BigDecimal[] decimals(String... values) {
+        return Arrays.stream(values).map(v -> v != null ? new BigDecimal(v) : null).toArray(BigDecimal[]::new);
+    }
+}
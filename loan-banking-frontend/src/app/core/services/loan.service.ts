@@ -15,7 +15,7 @@ import {
 export class LoanService {
   private readonly http = inject(HttpClient);
   private readonly base = `${environment.apiUrl}/api/loans`;
-  private readonly loanTypesBase = `${environment.apiUrl}/api/loan-types`;
+  private readonly loanTypesBase = `${environment.apiUrl}/api/loans/types`;
 
   // ── Loan CRUD ────────────────────────────────────────────────────────────
 
@@ -0,0 +1,127 @@
+package com.banking.loan.amortization;
+
+import com.banking.loan.enums.AmortizationSystem;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Motor de amortización. La misma implementación existe en payment-service para que el
+// cronograma y la cuota calculada por loan-service coincidan al céntimo.
+// Montos en céntimos (long) y tasa mensual en millonésimas (long), con redondeo HALF_UP exacto.
+public final class AmortizationCalculator {
+
+    private static final long RATE_SCALE = 1_000_000L;
+    private static final MathContext FACTOR_PRECISION = new MathContext(48, RoundingMode.HALF_EVEN);
+    private static final int FACTOR_TABLE_MAX_SIZE = 4096;
+
+    // Factor de anualidad por (tasa, plazo); las combinaciones reales son pocas
+    private static final Map<Long, BigDecimal> ANNUITY_FACTORS = new ConcurrentHashMap<>();
+
+    private AmortizationCalculator() {
+    }
+
+    // Tasa anual en porcentaje → tasa mensual con 6 decimales (equivale a /100 y /12 con HALF_UP)
+    public static long monthlyRateMicros(BigDecimal annualRatePercent) {
+        return annualRatePercent
+                .multiply(BigDecimal.valueOf(RATE_SCALE))
+                .divide(BigDecimal.valueOf(1200), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // Interés del periodo: saldo * tasa redondeado a céntimos
+    public static long interestCents(long balanceCents, long rateMicros) {
+        return divideHalfUp(Math.multiplyExact(balanceCents, rateMicros), RATE_SCALE);
+    }
+
+    // Cuota del sistema francés: M = P * [r(1+r)^n] / [(1+r)^n - 1]
+    public static long annuityPaymentCents(long principalCents, long rateMicros, int months) {
+        validateTerm(months);
+        if (rateMicros == 0) {
+            return divideHalfUp(principalCents, months);
+        }
+        return BigDecimal.valueOf(principalCents)
+                .multiply(annuityFactor(rateMicros, months))
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    public static BigDecimal annuityFactor(long rateMicros, int months) {
+        long key = (rateMicros << 16) | months;
+        BigDecimal factor = ANNUITY_FACTORS.get(key);
+        if (factor == null) {
+            if (ANNUITY_FACTORS.size() >= FACTOR_TABLE_MAX_SIZE) {
+                ANNUITY_FACTORS.clear();
+            }
+            factor = computeAnnuityFactor(rateMicros, months);
+            ANNUITY_FACTORS.put(key, factor);
+        }
+        return factor;
+    }
+
+    // Recorre las cuotas sin crear objetos intermedios; la última cuota absorbe el residuo de redondeo
+    // y el saldo nunca queda negativo
+    public static void forEachInstallment(AmortizationSystem system, long principalCents, long rateMicros,
+                                          int months, InstallmentVisitor visitor) {
+        validateTerm(months);
+        long annuity = system == AmortizationSystem.FRENCH
+                ? annuityPaymentCents(principalCents, rateMicros, months) : 0;
+        long constantPrincipal = system == AmortizationSystem.GERMAN
+                ? divideHalfUp(principalCents, months) : 0;
+
+        long balance = principalCents;
+        for (int i = 1; i <= months; i++) {
+            long interest = interestCents(balance, rateMicros);
+            long principal = switch (system) {
+                case FRENCH -> annuity - interest;
+                case GERMAN -> constantPrincipal;
+                case BULLET -> 0;
+            };
+            if (i == months || principal > balance) {
+                principal = balance;
+            }
+            balance -= principal;
+            visitor.accept(i, principal + interest, principal, interest, balance);
+
+            // Con tasas altas el redondeo del interés puede saldar el capital antes del plazo
+            if (balance == 0) break;
+        }
+    }
+
+    public static long totalPaymentCents(AmortizationSystem system, long principalCents, long rateMicros, int months) {
+        long[] total = new long[1];
+        forEachInstallment(system, principalCents, rateMicros, months,
+                (number, payment, principal, interest, remaining) -> total[0] += payment);
+        return total[0];
+    }
+
+    private static BigDecimal computeAnnuityFactor(long rateMicros, int months) {
+        BigDecimal rate = BigDecimal.valueOf(rateMicros, 6);
+        BigDecimal power = BigDecimal.ONE.add(rate).pow(months, FACTOR_PRECISION);
+        return rate.multiply(power, FACTOR_PRECISION)
+                .divide(power.subtract(BigDecimal.ONE), FACTOR_PRECISION);
+    }
+
+    // HALF_UP para valores no negativos
+    private static long divideHalfUp(long value, long divisor) {
+        long quotient = value / divisor;
+        long remainder = value % divisor;
+        return remainder * 2 >= divisor ? quotient + 1 : quotient;
+    }
+
+    private static void validateTerm(int months) {
+        if (months < 1 || months > 0xFFFF) {
+            throw new IllegalArgumentException("Plazo inválido: " + months);
+        }
+    }
+}
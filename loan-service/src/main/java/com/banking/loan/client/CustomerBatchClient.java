@@ -0,0 +1,30 @@
+package com.banking.loan.client;
+
+import com.banking.loan.dto.CustomerResponse;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Consulta masiva de clientes detrás del circuit breaker. Está en su propio bean porque
+// @CircuitBreaker solo se aplica a llamadas que pasan por el proxy, no a llamadas internas
+@Component
+@RequiredArgsConstructor
+public class CustomerBatchClient {
+
+    private final CustomerClient customerClient;
+    private final CustomerCache customerCache;
+
+    @CircuitBreaker(name = "customer-service", fallbackMethod = "getCustomersFallback")
+    public List<CustomerResponse> getCustomers(List<Long> customerIds) {
+        List<CustomerResponse> customers = customerClient.getCustomersByIds(customerIds);
+        customers.forEach(customerCache::put);
+        return customers;
+    }
+
+    // Sin respuesta el llamador completa cada ID con el cliente "no disponible"
+    public List<CustomerResponse> getCustomersFallback(List<Long> customerIds, Exception e) {
+        return List.of();
+    }
+}
@@ -0,0 +1,50 @@
+package com.banking.loan.client;
+
+import com.banking.loan.dto.CustomerResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+// Caché local de clientes; se invalida con el evento customer-updated.
+// Métricas en /actuator/metrics/cache.gets, cache.evictions y cache.size (cache=customers)
+@Component
+public class CustomerCache {
+
+    private final Cache<Long, CustomerResponse> cache;
+
+    public CustomerCache(@Value("${loan.customer-cache.max-size:10000}") long maxSize,
+                         @Value("${loan.customer-cache.ttl:10m}") Duration ttl,
+                         MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "customers");
+    }
+
+    public CustomerResponse get(Long customerId) {
+        return cache.getIfPresent(customerId);
+    }
+
+    public Map<Long, CustomerResponse> getAll(Collection<Long> customerIds) {
+        return cache.getAllPresent(customerIds);
+    }
+
+    public void put(CustomerResponse customer) {
+        if (customer != null && customer.getId() != null) {
+            cache.put(customer.getId(), customer);
+        }
+    }
+
+    public void invalidate(Long customerId) {
+        cache.invalidate(customerId);
+    }
+}
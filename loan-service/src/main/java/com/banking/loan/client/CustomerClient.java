@@ -5,9 +5,15 @@ import com.banking.loan.dto.CustomerResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(name = "customer-service", configuration = FeignConfig.class)
 public interface CustomerClient {
     @GetMapping("/api/customers/{id}")
     CustomerResponse getCustomerById(@PathVariable Long id);
-}
\ No newline at end of file
+
+    @GetMapping("/api/customers/batch")
+    List<CustomerResponse> getCustomersByIds(@RequestParam("ids") List<Long> ids);
+}
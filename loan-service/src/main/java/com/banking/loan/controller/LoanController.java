@@ -2,14 +2,24 @@ package com.banking.loan.controller;
 
 import com.banking.loan.dto.*;
 import com.banking.loan.enums.LoanStatus;
+import com.banking.loan.service.IdempotencyService;
+import com.banking.loan.service.LoanPortfolioStatsService;
 import com.banking.loan.service.LoanService;
+import com.banking.loan.service.LoanTypeCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -17,7 +27,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class LoanController {
 
+    // Los reintentos con la misma clave devuelven la respuesta original sin repetir la operación
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final LoanService loanService;
+    private final IdempotencyService idempotencyService;
+    private final LoanTypeCatalog loanTypeCatalog;
+    private final LoanPortfolioStatsService portfolioStatsService;
+    private final ObjectMapper objectMapper;
 
     // CLIENTE solicita su propio préstamo
     @PostMapping
@@ -27,6 +44,41 @@ public class LoanController {
                 .body(loanService.createLoan(request));
     }
 
+    // Tipos de préstamo activos, servidos desde el catálogo en memoria con soporte de ETag
+    @GetMapping("/types")
+    @PreAuthorize("hasAnyRole('ANALISTA', 'ADMIN', 'CLIENTE')")
+    public ResponseEntity<List<LoanTypeResponse>> getLoanTypes(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = loanTypeCatalog.getEtag();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(loanTypeCatalog.getActiveTypes());
+    }
+
+    // Solo ADMIN: recarga el catálogo en todas las réplicas tras modificar loan_types
+    @PostMapping("/types/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> refreshLoanTypes() {
+        loanTypeCatalog.publishChange();
+        return ResponseEntity.accepted().build();
+    }
+
+    // Totales de cartera por estado y tipo, leídos de los contadores incrementales
+    @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('ANALISTA', 'ADMIN')")
+    public ResponseEntity<PortfolioStatsResponse> getPortfolioStats() {
+        return ResponseEntity.ok(portfolioStatsService.getStats());
+    }
+
+    // Solo ADMIN: recalcula los contadores desde la tabla loans
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PortfolioStatsResponse> rebuildPortfolioStats() {
+        portfolioStatsService.rebuild();
+        return ResponseEntity.ok(portfolioStatsService.getStats());
+    }
+
     // ANALISTA y ADMIN ven cualquier préstamo por ID
     // CLIENTE solo puede ver si el préstamo le pertenece (se valida en service)
     @GetMapping("/{id}")
@@ -57,13 +109,44 @@ public class LoanController {
         return ResponseEntity.ok(loanService.getLoansByStatus(status));
     }
 
+    // Listado paginado por cursor (?cursor=<último id recibido>&size=), opcionalmente por estado
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('ANALISTA', 'ADMIN')")
+    public ResponseEntity<LoanPageResponse> getLoansPage(
+            @RequestParam(required = false) LoanStatus status,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(loanService.getLoansPage(status, cursor, size));
+    }
+
+    // Exportación completa en NDJSON: un LoanResponse por línea, escrito a medida que se lee
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ANALISTA', 'ADMIN')")
+    public void streamLoans(@RequestParam(required = false) LoanStatus status,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+
+        loanService.streamLoans(status, loan -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(loan));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
     // Solo ANALISTA y ADMIN aprueban
     @PostMapping("/{id}/approve")
     @PreAuthorize("hasAnyRole('ANALISTA', 'ADMIN')")
     public ResponseEntity<LoanResponse> approveLoan(
             @PathVariable Long id,
-            @Valid @RequestBody LoanApprovalRequest request) {
-        return ResponseEntity.ok(loanService.approveLoan(id, request));
+            @Valid @RequestBody LoanApprovalRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "approve:" + id,
+                () -> loanService.approveLoan(id, request)));
     }
 
     // Solo ANALISTA y ADMIN rechazan
@@ -71,14 +154,19 @@ public class LoanController {
     @PreAuthorize("hasAnyRole('ANALISTA', 'ADMIN')")
     public ResponseEntity<LoanResponse> rejectLoan(
             @PathVariable Long id,
-            @Valid @RequestBody LoanRejectionRequest request) {
-        return ResponseEntity.ok(loanService.rejectLoan(id, request));
+            @Valid @RequestBody LoanRejectionRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "reject:" + id,
+                () -> loanService.rejectLoan(id, request)));
     }
 
     // Solo ADMIN desembolsa
     @PostMapping("/{id}/disburse")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<LoanResponse> disburseLoan(@PathVariable Long id) {
-        return ResponseEntity.ok(loanService.disburseLoan(id));
+    public ResponseEntity<LoanResponse> disburseLoan(
+            @PathVariable Long id,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute(idempotencyKey, "disburse:" + id,
+                () -> loanService.disburseLoan(id)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.banking.loan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanPageResponse {
+    private List<LoanResponse> content;
+    private Long nextCursor;   // Pasar como ?cursor= para obtener la siguiente página
+    private boolean hasMore;
+}
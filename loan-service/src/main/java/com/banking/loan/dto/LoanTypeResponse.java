@@ -0,0 +1,16 @@
+package com.banking.loan.dto;
+
+import java.math.BigDecimal;
+
+public record LoanTypeResponse(
+        Long id,
+        String name,
+        String description,
+        BigDecimal minAmount,
+        BigDecimal maxAmount,
+        Integer minTermMonths,
+        Integer maxTermMonths,
+        BigDecimal interestRate,
+        boolean requiresCollateral,
+        boolean active
+) {}
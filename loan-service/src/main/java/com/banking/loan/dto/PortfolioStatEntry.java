@@ -0,0 +1,17 @@
+package com.banking.loan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioStatEntry {
+    private String key;                    // Estado o nombre del tipo de préstamo
+    private long count;
+    private BigDecimal totalAmount;
+    private BigDecimal outstandingBalance;
+}
@@ -0,0 +1,19 @@
+package com.banking.loan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioStatsResponse {
+    private long totalLoans;
+    private BigDecimal totalAmount;
+    private BigDecimal totalOutstandingBalance;
+    private List<PortfolioStatEntry> byStatus;
+    private List<PortfolioStatEntry> byLoanType;
+}
@@ -0,0 +1,30 @@
+package com.banking.loan.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 100)
+    private String operation;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
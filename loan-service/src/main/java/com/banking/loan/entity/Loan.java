@@ -4,7 +4,9 @@ import com.banking.loan.enums.LoanStatus;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -25,8 +27,11 @@ public class Loan {
     @Column(nullable = false)
     private Long customerId;
 
-    @ManyToOne
+    // Los datos del tipo se leen del catálogo en memoria; aquí solo se necesita el id
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "loan_type_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private LoanType loanType;
 
     @Column(nullable = false, precision = 12, scale = 2)
@@ -76,4 +81,8 @@ public class Loan {
 
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version = 0L;
 }
\ No newline at end of file
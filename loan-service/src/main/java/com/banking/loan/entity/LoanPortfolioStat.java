@@ -0,0 +1,40 @@
+package com.banking.loan.entity;
+
+import com.banking.loan.enums.LoanStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Agregado por (estado, tipo de préstamo); se mantiene incrementalmente en cada cambio
+@Entity
+@Table(name = "loan_portfolio_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_portfolio_status_type",
+                columnNames = {"status", "loan_type_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanPortfolioStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private LoanStatus status;
+
+    @Column(name = "loan_type_id", nullable = false)
+    private Long loanTypeId;
+
+    @Column(nullable = false)
+    private Long loanCount = 0L;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal outstandingBalance = BigDecimal.ZERO;
+}
@@ -1,5 +1,8 @@
 package com.banking.loan.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum LoanStatus {
     PENDING,      //En evaluación
     APPROVED,     //Aprobado (aún no desembolsado)
@@ -7,5 +10,19 @@ public enum LoanStatus {
     ACTIVE,       //Desembolsado y activo
     COMPLETED,    //Pagado completamente
     DEFAULTED,    //En mora
-    CANCELLED     //Cancelado
-}
\ No newline at end of file
+    CANCELLED;    //Cancelado
+
+    public boolean canTransitionTo(LoanStatus target) {
+        return allowedTransitions().contains(target);
+    }
+
+    private Set<LoanStatus> allowedTransitions() {
+        return switch (this) {
+            case PENDING -> EnumSet.of(APPROVED, REJECTED, CANCELLED);
+            case APPROVED -> EnumSet.of(ACTIVE, CANCELLED);
+            case ACTIVE -> EnumSet.of(COMPLETED, DEFAULTED);
+            case DEFAULTED -> EnumSet.of(ACTIVE, COMPLETED);
+            case REJECTED, COMPLETED, CANCELLED -> EnumSet.noneOf(LoanStatus.class);
+        };
+    }
+}
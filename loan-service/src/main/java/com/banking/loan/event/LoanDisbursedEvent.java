@@ -10,5 +10,6 @@ public record LoanDisbursedEvent(
         BigDecimal monthlyPayment,
         Integer termMonths,
         LocalDateTime disbursementDate,
-        BigDecimal interestRate
+        BigDecimal interestRate,
+        BigDecimal principal
 ) {}
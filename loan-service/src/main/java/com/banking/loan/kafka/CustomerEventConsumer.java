@@ -0,0 +1,31 @@
+package com.banking.loan.kafka;
+
+import com.banking.loan.client.CustomerCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerEventConsumer {
+
+    private final CustomerCache customerCache;
+
+    // Grupo propio por instancia: cada réplica debe invalidar su caché local
+    @KafkaListener(topics = "customer-updated",
+            groupId = "loan-service-cache-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onCustomerUpdated(Map<String, Object> payload) {
+        try {
+            Long customerId = Long.valueOf(payload.get("customerId").toString());
+            customerCache.invalidate(customerId);
+            log.info("Caché de cliente invalidada → customerId={}", customerId);
+        } catch (Exception e) {
+            log.error("Error procesando customer-updated: {}", e.getMessage(), e);
+        }
+    }
+}
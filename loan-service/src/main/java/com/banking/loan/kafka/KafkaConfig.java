@@ -5,22 +5,48 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.kafka.common.serialization.Serializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
 
+    public static final String PAYMENT_RECEIVED_DLT = "payment-received-dlt";
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${loan.kafka.producer.linger-ms:20}")
+    private int producerLingerMs;
+
+    @Value("${loan.kafka.producer.batch-size:65536}")
+    private int producerBatchSize;
+
+    @Value("${loan.kafka.payment.max-poll-records:500}")
+    private int paymentMaxPollRecords;
+
+    @Value("${loan.kafka.payment.concurrency:3}")
+    private int paymentConcurrency;
+
+    @Value("${loan.kafka.payment.retry-attempts:3}")
+    private long paymentRetryAttempts;
+
+    @Value("${loan.kafka.payment.retry-backoff-ms:1000}")
+    private long paymentRetryBackoffMs;
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -35,6 +61,11 @@ public class KafkaConfig {
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // Productor idempotente: los reintentos del relay del outbox no duplican ni reordenan
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
         DefaultKafkaProducerFactory<String, Object> factory =
                 new DefaultKafkaProducerFactory<>(props);
         factory.setValueSerializer(new Serializer<>() {
@@ -68,6 +99,53 @@ public class KafkaConfig {
         return factory;
     }
 
+    // payment-received se consume por lotes: una transacción y un commit de offsets por poll
+    @Bean
+    public ConsumerFactory<String, String> paymentBatchConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "loan-service");
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, paymentMaxPollRecords);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String>
+    paymentBatchListenerContainerFactory(ConsumerFactory<String, String> paymentBatchConsumerFactory,
+                                         DeadLetterPublishingRecoverer paymentDeadLetterRecoverer) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(paymentBatchConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(paymentConcurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // Un lote que sigue fallando tras los reintentos se reintenta entero y, agotados,
+        // cada registro va a payment-received-dlt en vez de perderse
+        factory.setCommonErrorHandler(new DefaultErrorHandler(paymentDeadLetterRecoverer,
+                new FixedBackOff(paymentRetryBackoffMs, paymentRetryAttempts)));
+        return factory;
+    }
+
+    // Los registros fallidos se reenvían tal como llegaron (String), sin pasar por Jackson
+    @Bean
+    public KafkaTemplate<String, String> stringKafkaTemplate() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    @Bean
+    public DeadLetterPublishingRecoverer paymentDeadLetterRecoverer(KafkaTemplate<String, String> stringKafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(stringKafkaTemplate,
+                (record, e) -> new TopicPartition(PAYMENT_RECEIVED_DLT, -1));
+    }
+
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate(
             ProducerFactory<String, Object> producerFactory) {
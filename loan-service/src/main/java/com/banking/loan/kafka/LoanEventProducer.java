@@ -1,38 +1,59 @@
 package com.banking.loan.kafka;
 
+import com.banking.loan.entity.OutboxEvent;
 import com.banking.loan.event.LoanApprovedEvent;
 import com.banking.loan.event.LoanCreatedEvent;
 import com.banking.loan.event.LoanDisbursedEvent;
 import com.banking.loan.event.LoanRejectedEvent;
+import com.banking.loan.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+// Los eventos se guardan en la tabla outbox dentro de la transacción del préstamo;
+// OutboxRelay los publica en Kafka después del commit.
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
 public class LoanEventProducer {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
 
     public void sendLoanCreated(LoanCreatedEvent event) {
-        kafkaTemplate.send("loan-created", String.valueOf(event.loanId()), event);
-        log.info("Evento LoanCreated enviado para loanId={}", event.loanId());
+        enqueue("loan-created", event.loanId(), event);
+        log.info("Evento LoanCreated registrado en outbox para loanId={}", event.loanId());
     }
 
     public void sendLoanApproved(LoanApprovedEvent event) {
-        kafkaTemplate.send("loan-approved", String.valueOf(event.loanId()), event);
-        log.info("Evento LoanApproved enviado para loanId={}", event.loanId());
+        enqueue("loan-approved", event.loanId(), event);
+        log.info("Evento LoanApproved registrado en outbox para loanId={}", event.loanId());
     }
 
     public void sendLoanDisbursed(LoanDisbursedEvent event) {
-        kafkaTemplate.send("loan-disbursed", String.valueOf(event.loanId()), event);
-        log.info("Evento LoanDisbursed enviado para loanId={}", event.loanId());
+        enqueue("loan-disbursed", event.loanId(), event);
+        log.info("Evento LoanDisbursed registrado en outbox para loanId={}", event.loanId());
     }
 
     public void sendLoanRejected(LoanRejectedEvent event) {
-        kafkaTemplate.send("loan-rejected", String.valueOf(event.loanId()), event);
-        log.info("Evento LoanRejected enviado para loanId={}", event.loanId());
+        enqueue("loan-rejected", event.loanId(), event);
+        log.info("Evento LoanRejected registrado en outbox para loanId={}", event.loanId());
     }
-}
\ No newline at end of file
+
+    private void enqueue(String topic, Long loanId, Object event) {
+        try {
+            OutboxEvent outbox = new OutboxEvent();
+            outbox.setTopic(topic);
+            outbox.setEventKey(String.valueOf(loanId));
+            outbox.setPayload(objectMapper.writeValueAsString(event));
+            outboxRepository.save(outbox);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializando evento para " + topic, e);
+        }
+    }
+}
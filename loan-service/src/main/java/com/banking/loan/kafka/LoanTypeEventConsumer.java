@@ -0,0 +1,27 @@
+package com.banking.loan.kafka;
+
+import com.banking.loan.service.LoanTypeCatalog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoanTypeEventConsumer {
+
+    private final LoanTypeCatalog loanTypeCatalog;
+
+    // Grupo propio por instancia: cada réplica recarga su catálogo
+    @KafkaListener(topics = LoanTypeCatalog.LOAN_TYPE_CHANGED_TOPIC,
+            groupId = "loan-service-catalog-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onLoanTypeChanged(String payload) {
+        try {
+            loanTypeCatalog.refresh();
+        } catch (Exception e) {
+            log.error("Error recargando catálogo de tipos de préstamo: {}", e.getMessage(), e);
+        }
+    }
+}
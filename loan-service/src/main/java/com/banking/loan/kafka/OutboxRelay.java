@@ -0,0 +1,115 @@
+package com.banking.loan.kafka;
+
+import com.banking.loan.entity.OutboxEvent;
+import com.banking.loan.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Publica en Kafka los eventos pendientes del outbox, por lotes.
+// Una fila solo se borra cuando Kafka confirmó su envío (entrega at-least-once).
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter invalidCounter;
+    private final Timer batchTimer;
+
+    @Value("${loan.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${loan.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publishedCounter = meterRegistry.counter("loan.outbox.published");
+        this.failedCounter = meterRegistry.counter("loan.outbox.failed");
+        this.invalidCounter = meterRegistry.counter("loan.outbox.invalid");
+        this.batchTimer = meterRegistry.timer("loan.outbox.batch");
+    }
+
+    // El intervalo entre drenados actúa como linger del lado de la aplicación
+    @Scheduled(fixedDelayString = "${loan.outbox.linger-ms:200}")
+    public void drain() {
+        int sent;
+        do {
+            try {
+                sent = batchTimer.record(() -> transactionTemplate.execute(status -> publishBatch()));
+            } catch (Exception e) {
+                failedCounter.increment();
+                log.error("Error publicando lote del outbox: {}", e.getMessage(), e);
+                return;
+            }
+        } while (sent == batchSize);
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> batch = outboxRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) return 0;
+
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        List<OutboxEvent> sending = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            Object payload = toJson(event);
+            if (payload == null) continue;
+            futures.add(kafkaTemplate.send(event.getTopic(), event.getEventKey(), payload));
+            sending.add(event);
+        }
+        kafkaTemplate.flush();
+
+        // Si algún envío falla se hace rollback y el lote completo se reintenta en el próximo ciclo
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS)
+                .join();
+
+        outboxRepository.deleteAllInBatch(sending);
+        publishedCounter.increment(sending.size());
+        log.debug("Outbox: {} eventos publicados", sending.size());
+        return batch.size();
+    }
+
+    // null si el payload no es JSON válido: la fila queda marcada como fallida (se guarda con el
+    // commit del lote) en lugar de tirar el lote completo una y otra vez
+    private Object toJson(OutboxEvent event) {
+        try {
+            // JsonNode para que el serializador del producer no vuelva a escapar el JSON
+            return objectMapper.readTree(event.getPayload());
+        } catch (Exception e) {
+            log.error("Payload inválido en outbox id={}, se marca como fallido: {}", event.getId(), e.getMessage());
+            event.setFailedAt(LocalDateTime.now());
+            event.setErrorMessage(e.getMessage());
+            invalidCounter.increment();
+            return null;
+        }
+    }
+}
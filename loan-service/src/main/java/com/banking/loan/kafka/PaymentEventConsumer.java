@@ -1,52 +1,74 @@
 package com.banking.loan.kafka;
 
-import com.banking.loan.entity.Loan;
-import com.banking.loan.enums.LoanStatus;
-import com.banking.loan.repository.LoanRepository;
+import com.banking.loan.service.LoanBalanceService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentEventConsumer {
 
-    private final LoanRepository loanRepository;
+    private final LoanBalanceService loanBalanceService;
+    private final ObjectMapper objectMapper;
+    private final DeadLetterPublishingRecoverer paymentDeadLetterRecoverer;
 
-    @KafkaListener(topics = "payment-received", groupId = "loan-service")
-    @Transactional
-    public void onPaymentReceived(Map<String, Object> payload) {
-        try {
-            Long loanId = Long.valueOf(payload.get("loanId").toString());
-            BigDecimal principalPaid = new BigDecimal(payload.get("principalPaid").toString());
+    @Value("${loan.payment.max-retries:5}")
+    private int maxRetries;
 
-            Loan loan = loanRepository.findById(loanId)
-                    .orElseThrow(() -> new RuntimeException("Préstamo no encontrado: " + loanId));
+    // Agrupa el capital pagado por préstamo y lo aplica en un solo batch JDBC por poll.
+    // Si la actualización falla la excepción se propaga, los offsets no se confirman y el
+    // DefaultErrorHandler del contenedor reintenta el lote antes de mandarlo a payment-received-dlt.
+    @KafkaListener(topics = "payment-received", groupId = "loan-service",
+            containerFactory = "paymentBatchListenerContainerFactory")
+    public void onPaymentsReceived(List<ConsumerRecord<String, String>> records) throws InterruptedException {
+        // TreeMap: los préstamos se actualizan siempre en el mismo orden y se evitan deadlocks entre consumidores
+        Map<Long, BigDecimal> principalByLoan = new TreeMap<>();
 
-            BigDecimal newBalance = loan.getOutstandingBalance()
-                    .subtract(principalPaid)
-                    .max(BigDecimal.ZERO);
-
-            loan.setOutstandingBalance(newBalance);
-
-            if (newBalance.compareTo(BigDecimal.ZERO) == 0) {
-                loan.setStatus(LoanStatus.COMPLETED);
-                loan.setCompletionDate(LocalDateTime.now());
-                log.info("Préstamo {} marcado como COMPLETED", loanId);
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                JsonNode payload = objectMapper.readTree(record.value());
+                Long loanId = payload.get("loanId").asLong();
+                BigDecimal principalPaid = new BigDecimal(payload.get("principalPaid").asText());
+                principalByLoan.merge(loanId, principalPaid, BigDecimal::add);
+            } catch (Exception e) {
+                // Reintentarlo no lo arregla: va directo a la DLT y el resto del lote sigue
+                log.error("payment-received inválido enviado a {} (partition={}, offset={}): {}",
+                        KafkaConfig.PAYMENT_RECEIVED_DLT, record.partition(), record.offset(), e.getMessage());
+                paymentDeadLetterRecoverer.accept(record, e);
             }
+        }
 
-            loanRepository.save(loan);
-            log.info("outstandingBalance actualizado → loanId={} nuevoBalance={}", loanId, newBalance);
+        if (principalByLoan.isEmpty()) return;
 
-        } catch (Exception e) {
-            log.error("Error procesando payment-received: {}", e.getMessage(), e);
+        applyWithRetry(principalByLoan);
+        log.info("outstandingBalance actualizado → {} eventos, {} préstamos", records.size(), principalByLoan.size());
+    }
+
+    // Deadlocks o timeouts de bloqueo se reintentan con backoff antes de devolver el lote al contenedor
+    private void applyWithRetry(Map<Long, BigDecimal> principalByLoan) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                loanBalanceService.applyPrincipalPayments(principalByLoan);
+                return;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxRetries) throw e;
+                log.warn("Conflicto aplicando lote de pagos (intento {}), reintentando", attempt);
+                Thread.sleep(50L * attempt);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package com.banking.loan.repository;
+
+import com.banking.loan.entity.LoanPortfolioStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LoanPortfolioStatRepository extends JpaRepository<LoanPortfolioStat, Long> {
+}
@@ -2,12 +2,37 @@ package com.banking.loan.repository;
 
 import com.banking.loan.entity.Loan;
 import com.banking.loan.enums.LoanStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface LoanRepository extends JpaRepository<Loan, Long> {
     List<Loan> findByCustomerId(Long customerId);
     List<Loan> findByStatus(LoanStatus status);
     Long countByCustomerIdAndStatus(Long customerId, LoanStatus status);
-}
\ No newline at end of file
+
+    // Paginación por cursor (keyset) sobre id
+    List<Loan> findByIdGreaterThanOrderByIdAsc(Long cursor, Pageable pageable);
+    List<Loan> findByStatusAndIdGreaterThanOrderByIdAsc(LoanStatus status, Long cursor, Pageable pageable);
+
+    // Lectura en streaming de a 500 filas (useCursorFetch=true en application.yaml)
+    @Query("SELECT l FROM Loan l ORDER BY l.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Loan> streamAll();
+
+    @Query("SELECT l FROM Loan l WHERE l.status = :status ORDER BY l.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Loan> streamByStatus(LoanStatus status);
+
+    // Transición condicional: solo una de varias solicitudes concurrentes encuentra el estado esperado
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Loan l SET l.status = :target WHERE l.id = :id AND l.status = :expected")
+    int updateStatusIfCurrent(Long id, LoanStatus expected, LoanStatus target);
+}
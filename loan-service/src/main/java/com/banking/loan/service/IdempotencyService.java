@@ -0,0 +1,109 @@
+package com.banking.loan.service;
+
+import com.banking.loan.dto.LoanResponse;
+import com.banking.loan.entity.IdempotencyRecord;
+import com.banking.loan.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Deduplica POSTs reintentados con el header Idempotency-Key: la clave se registra en la
+// misma transacción que la operación y los reintentos reciben la respuesta guardada.
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${loan.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public LoanResponse execute(String idempotencyKey, String operation, Supplier<LoanResponse> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+
+        try {
+            return transactionTemplate.execute(status -> executeOnce(idempotencyKey, operation, action));
+        } catch (DataIntegrityViolationException e) {
+            // Un reintento concurrente queda bloqueado en la PK hasta que la primera petición
+            // confirma; su transacción ya está descartada, así que se relee la clave en una nueva.
+            // Sin registro, la violación vino de la propia operación y se propaga tal cual.
+            return recordRepository.findById(idempotencyKey)
+                    .map(record -> cachedResponse(record, operation))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private LoanResponse executeOnce(String idempotencyKey, String operation, Supplier<LoanResponse> action) {
+        Optional<IdempotencyRecord> existing = recordRepository.findById(idempotencyKey);
+        if (existing.isPresent()) {
+            return cachedResponse(existing.get(), operation);
+        }
+
+        // Reservar la clave antes de ejecutar: una petición concurrente con la misma clave
+        // queda bloqueada en la PK hasta que esta transacción termine
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(idempotencyKey);
+        record.setOperation(operation);
+        recordRepository.saveAndFlush(record);
+
+        LoanResponse response = action.get();
+
+        record.setResponseBody(toJson(response));
+        recordRepository.save(record);
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${loan.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = recordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("Idempotency-Keys expiradas eliminadas: {}", deleted);
+        }
+    }
+
+    private LoanResponse cachedResponse(IdempotencyRecord record, String operation) {
+        if (!record.getOperation().equals(operation)) {
+            throw new RuntimeException("Idempotency-Key ya utilizada para otra operación");
+        }
+        if (record.getResponseBody() == null) {
+            throw new RuntimeException("Solicitud con la misma Idempotency-Key en curso");
+        }
+        try {
+            return objectMapper.readValue(record.getResponseBody(), LoanResponse.class);
+        } catch (Exception e) {
+            throw new RuntimeException("Respuesta almacenada inválida para Idempotency-Key", e);
+        }
+    }
+
+    private String toJson(LoanResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (Exception e) {
+            throw new RuntimeException("Error serializando respuesta", e);
+        }
+    }
+}
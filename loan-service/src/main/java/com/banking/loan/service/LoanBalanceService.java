@@ -0,0 +1,92 @@
+package com.banking.loan.service;
+
+import com.banking.loan.enums.LoanStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoanBalanceService {
+
+    private static final String DECREASE_BALANCE_SQL =
+            "UPDATE loans SET outstanding_balance = GREATEST(outstanding_balance - ?, 0), " +
+            "version = version + 1 WHERE id = ?";
+
+    private static final String COMPLETE_IF_PAID_OFF_SQL =
+            "UPDATE loans SET status = 'COMPLETED', completion_date = NOW(), version = version + 1 " +
+            "WHERE id = ? AND status = 'ACTIVE' AND outstanding_balance = 0";
+
+    private static final String LOCK_LOANS_SQL =
+            "SELECT id, loan_type_id, status, amount, outstanding_balance FROM loans " +
+            "WHERE id IN (%s) ORDER BY id FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoanPortfolioStatsService portfolioStatsService;
+
+    private record LoanSnapshot(Long loanTypeId, LoanStatus status, BigDecimal amount, BigDecimal balance) {}
+
+    // Descuento atómico del saldo: evita el read-modify-write entre eventos concurrentes
+    @Transactional
+    public void applyPrincipalPayments(Map<Long, BigDecimal> principalByLoan) {
+        // Bloquea las filas y lee el saldo previo para calcular el delta exacto de las estadísticas
+        Map<Long, LoanSnapshot> snapshots = lockLoans(principalByLoan.keySet());
+
+        List<Object[]> decreaseArgs = new ArrayList<>(principalByLoan.size());
+        List<Object[]> completeArgs = new ArrayList<>(principalByLoan.size());
+        principalByLoan.forEach((loanId, principal) -> {
+            decreaseArgs.add(new Object[]{principal, loanId});
+            completeArgs.add(new Object[]{loanId});
+        });
+
+        int[] updated = jdbcTemplate.batchUpdate(DECREASE_BALANCE_SQL, decreaseArgs);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                log.warn("Préstamo no encontrado al aplicar pago: {}", decreaseArgs.get(i)[1]);
+            }
+        }
+
+        int[] completed = jdbcTemplate.batchUpdate(COMPLETE_IF_PAID_OFF_SQL, completeArgs);
+        LoanPortfolioStatsService.Changes changes = new LoanPortfolioStatsService.Changes();
+        for (int i = 0; i < completed.length; i++) {
+            Long loanId = (Long) completeArgs.get(i)[0];
+            LoanSnapshot snapshot = snapshots.get(loanId);
+            if (snapshot == null) continue;
+
+            BigDecimal newBalance = snapshot.balance().subtract(principalByLoan.get(loanId)).max(BigDecimal.ZERO);
+            LoanStatus newStatus = completed[i] > 0 ? LoanStatus.COMPLETED : snapshot.status();
+            changes.move(snapshot.loanTypeId(),
+                    snapshot.status(), snapshot.amount(), snapshot.balance(),
+                    newStatus, snapshot.amount(), newBalance);
+            if (completed[i] > 0) {
+                log.info("Préstamo {} marcado como COMPLETED", loanId);
+            }
+        }
+        portfolioStatsService.apply(changes);
+    }
+
+    private Map<Long, LoanSnapshot> lockLoans(Collection<Long> loanIds) {
+        String placeholders = String.join(",", Collections.nCopies(loanIds.size(), "?"));
+        Map<Long, LoanSnapshot> snapshots = new HashMap<>();
+        jdbcTemplate.query(LOCK_LOANS_SQL.formatted(placeholders), rs -> {
+            BigDecimal balance = rs.getBigDecimal("outstanding_balance");
+            snapshots.put(rs.getLong("id"), new LoanSnapshot(
+                    rs.getLong("loan_type_id"),
+                    LoanStatus.valueOf(rs.getString("status")),
+                    rs.getBigDecimal("amount"),
+                    balance != null ? balance : BigDecimal.ZERO));
+        }, loanIds.toArray());
+        return snapshots;
+    }
+}
@@ -0,0 +1,173 @@
+package com.banking.loan.service;
+
+import com.banking.loan.dto.LoanTypeResponse;
+import com.banking.loan.dto.PortfolioStatEntry;
+import com.banking.loan.dto.PortfolioStatsResponse;
+import com.banking.loan.entity.LoanPortfolioStat;
+import com.banking.loan.enums.LoanStatus;
+import com.banking.loan.repository.LoanPortfolioStatRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Contadores de cartera por (estado, tipo). Los deltas se aplican en la misma transacción
+// que el cambio del préstamo, así que el agregado nunca diverge de la tabla loans.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoanPortfolioStatsService {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO loan_portfolio_stats (status, loan_type_id, loan_count, total_amount, outstanding_balance) " +
+            "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "loan_count = loan_count + VALUES(loan_count), " +
+            "total_amount = total_amount + VALUES(total_amount), " +
+            "outstanding_balance = outstanding_balance + VALUES(outstanding_balance)";
+
+    private static final String REBUILD_SQL =
+            "INSERT INTO loan_portfolio_stats (status, loan_type_id, loan_count, total_amount, outstanding_balance) " +
+            "SELECT status, loan_type_id, COUNT(*), SUM(amount), COALESCE(SUM(outstanding_balance), 0) " +
+            "FROM loans GROUP BY status, loan_type_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoanPortfolioStatRepository statRepository;
+    private final LoanTypeCatalog loanTypeCatalog;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Long loanTypeId, LoanStatus status, BigDecimal amount) {
+        Changes changes = new Changes();
+        changes.add(status, loanTypeId, 1, amount, null);
+        apply(changes);
+    }
+
+    // Mueve un préstamo de una fila a otra (o ajusta la misma fila si el estado no cambia)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChange(Long loanTypeId,
+                             LoanStatus fromStatus, BigDecimal fromAmount, BigDecimal fromBalance,
+                             LoanStatus toStatus, BigDecimal toAmount, BigDecimal toBalance) {
+        Changes changes = new Changes();
+        changes.move(loanTypeId, fromStatus, fromAmount, fromBalance, toStatus, toAmount, toBalance);
+        apply(changes);
+    }
+
+    // Las filas se actualizan siempre en el mismo orden para evitar interbloqueos entre lotes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Changes changes) {
+        List<Object[]> args = new ArrayList<>(changes.deltas.size());
+        changes.deltas.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                args.add(new Object[]{key.status().name(), key.loanTypeId(),
+                        delta.count, delta.amount, delta.balance});
+            }
+        });
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public PortfolioStatsResponse getStats() {
+        Map<LoanStatus, PortfolioStatEntry> byStatus = new EnumMap<>(LoanStatus.class);
+        Map<Long, PortfolioStatEntry> byType = new TreeMap<>();
+        long totalLoans = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal totalBalance = BigDecimal.ZERO;
+
+        for (LoanPortfolioStat stat : statRepository.findAll()) {
+            accumulate(byStatus.computeIfAbsent(stat.getStatus(), s -> emptyEntry(s.name())), stat);
+            accumulate(byType.computeIfAbsent(stat.getLoanTypeId(), this::emptyTypeEntry), stat);
+            totalLoans += stat.getLoanCount();
+            totalAmount = totalAmount.add(stat.getTotalAmount());
+            totalBalance = totalBalance.add(stat.getOutstandingBalance());
+        }
+
+        return new PortfolioStatsResponse(totalLoans, totalAmount, totalBalance,
+                new ArrayList<>(byStatus.values()), new ArrayList<>(byType.values()));
+    }
+
+    // Reconstrucción completa desde loans (carga inicial o conciliación)
+    @Transactional
+    public void rebuild() {
+        jdbcTemplate.update("DELETE FROM loan_portfolio_stats");
+        int rows = jdbcTemplate.update(REBUILD_SQL);
+        log.info("Estadísticas de cartera reconstruidas: {} filas", rows);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (statRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    private PortfolioStatEntry emptyEntry(String key) {
+        return new PortfolioStatEntry(key, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    private PortfolioStatEntry emptyTypeEntry(Long loanTypeId) {
+        return emptyEntry(loanTypeCatalog.findById(loanTypeId)
+                .map(LoanTypeResponse::name)
+                .orElse(String.valueOf(loanTypeId)));
+    }
+
+    private void accumulate(PortfolioStatEntry entry, LoanPortfolioStat stat) {
+        entry.setCount(entry.getCount() + stat.getLoanCount());
+        entry.setTotalAmount(entry.getTotalAmount().add(stat.getTotalAmount()));
+        entry.setOutstandingBalance(entry.getOutstandingBalance().add(stat.getOutstandingBalance()));
+    }
+
+    private record StatKey(Long loanTypeId, LoanStatus status) {}
+
+    private static final Comparator<StatKey> KEY_ORDER =
+            Comparator.comparing(StatKey::loanTypeId).thenComparing(StatKey::status);
+
+    private static final class Delta {
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private BigDecimal balance = BigDecimal.ZERO;
+
+        private boolean isZero() {
+            return count == 0 && amount.signum() == 0 && balance.signum() == 0;
+        }
+    }
+
+    // Acumula deltas de varios préstamos para aplicarlos en un único batch
+    public static final class Changes {
+        private final Map<StatKey, Delta> deltas = new TreeMap<>(KEY_ORDER);
+
+        public void add(LoanStatus status, Long loanTypeId, long count, BigDecimal amount, BigDecimal balance) {
+            Delta delta = deltas.computeIfAbsent(new StatKey(loanTypeId, status), k -> new Delta());
+            delta.count += count;
+            delta.amount = delta.amount.add(orZero(amount));
+            delta.balance = delta.balance.add(orZero(balance));
+        }
+
+        public void move(Long loanTypeId,
+                         LoanStatus fromStatus, BigDecimal fromAmount, BigDecimal fromBalance,
+                         LoanStatus toStatus, BigDecimal toAmount, BigDecimal toBalance) {
+            add(fromStatus, loanTypeId, -1, orZero(fromAmount).negate(), orZero(fromBalance).negate());
+            add(toStatus, loanTypeId, 1, toAmount, toBalance);
+        }
+
+        public boolean isEmpty() {
+            return deltas.isEmpty();
+        }
+
+        private static BigDecimal orZero(BigDecimal value) {
+            return value != null ? value : BigDecimal.ZERO;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.banking.loan.dto.*;
 import com.banking.loan.enums.LoanStatus;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LoanService {
     LoanResponse createLoan(LoanRequest request);
@@ -11,6 +12,8 @@ public interface LoanService {
     List<LoanResponse> getLoansByCustomer(Long customerId);
     List<LoanResponse> getAllLoans();
     List<LoanResponse> getLoansByStatus(LoanStatus status);
+    LoanPageResponse getLoansPage(LoanStatus status, Long cursor, int size);
+    void streamLoans(LoanStatus status, Consumer<LoanResponse> sink);
     LoanResponse approveLoan(Long id, LoanApprovalRequest request);
     LoanResponse rejectLoan(Long id, LoanRejectionRequest request);
     LoanResponse disburseLoan(Long id);
@@ -0,0 +1,88 @@
+package com.banking.loan.service;
+
+import com.banking.loan.dto.LoanTypeResponse;
+import com.banking.loan.entity.LoanType;
+import com.banking.loan.repository.LoanTypeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Catálogo de tipos de préstamo en memoria. Cada refresh construye una instantánea inmutable
+// nueva y la publica de forma atómica; las lecturas nunca consultan la base de datos.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoanTypeCatalog {
+
+    public static final String LOAN_TYPE_CHANGED_TOPIC = "loan-type-changed";
+
+    private final LoanTypeRepository loanTypeRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), List.of(), "\"0\"");
+
+    private record Snapshot(Map<Long, LoanTypeResponse> byId, List<LoanTypeResponse> active, String etag) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    public synchronized void refresh() {
+        List<LoanTypeResponse> all = loanTypeRepository.findAll().stream()
+                .map(this::toResponse)
+                .sorted(Comparator.comparing(LoanTypeResponse::id))
+                .toList();
+
+        Map<Long, LoanTypeResponse> byId = all.stream()
+                .collect(Collectors.toUnmodifiableMap(LoanTypeResponse::id, Function.identity()));
+        List<LoanTypeResponse> active = all.stream()
+                .filter(LoanTypeResponse::active)
+                .toList();
+
+        snapshot = new Snapshot(byId, active, "\"" + Integer.toHexString(all.hashCode()) + "\"");
+        log.info("Catálogo de tipos de préstamo cargado: {} tipos ({} activos)", all.size(), active.size());
+    }
+
+    // Notifica a todas las réplicas (incluida esta) que deben recargar el catálogo
+    public void publishChange() {
+        kafkaTemplate.send(LOAN_TYPE_CHANGED_TOPIC, Map.of("changedAt", System.currentTimeMillis()));
+    }
+
+    public Optional<LoanTypeResponse> findById(Long id) {
+        return Optional.ofNullable(snapshot.byId().get(id));
+    }
+
+    public List<LoanTypeResponse> getActiveTypes() {
+        return snapshot.active();
+    }
+
+    public String getEtag() {
+        return snapshot.etag();
+    }
+
+    private LoanTypeResponse toResponse(LoanType type) {
+        return new LoanTypeResponse(
+                type.getId(),
+                type.getName(),
+                type.getDescription(),
+                type.getMinAmount(),
+                type.getMaxAmount(),
+                type.getMinTermMonths(),
+                type.getMaxTermMonths(),
+                type.getInterestRate(),
+                Boolean.TRUE.equals(type.getRequiresCollateral()),
+                Boolean.TRUE.equals(type.getActive())
+        );
+    }
+}
@@ -1,9 +1,12 @@
 package com.banking.loan.service.impl;
 
+import com.banking.loan.amortization.AmortizationCalculator;
+import com.banking.loan.client.CustomerBatchClient;
+import com.banking.loan.client.CustomerCache;
 import com.banking.loan.client.CustomerClient;
 import com.banking.loan.dto.*;
 import com.banking.loan.entity.Loan;
-import com.banking.loan.entity.LoanType;
+import com.banking.loan.enums.AmortizationSystem;
 import com.banking.loan.enums.LoanStatus;
 import com.banking.loan.event.LoanApprovedEvent;
 import com.banking.loan.event.LoanCreatedEvent;
@@ -12,54 +15,74 @@ import com.banking.loan.event.LoanRejectedEvent;
 import com.banking.loan.kafka.LoanEventProducer;
 import com.banking.loan.repository.LoanRepository;
 import com.banking.loan.repository.LoanTypeRepository;
+import com.banking.loan.service.LoanPortfolioStatsService;
 import com.banking.loan.service.LoanService;
+import com.banking.loan.service.LoanTypeCatalog;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class LoanServiceImpl implements LoanService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final LoanRepository loanRepository;
     private final LoanTypeRepository loanTypeRepository;
+    private final LoanTypeCatalog loanTypeCatalog;
+    private final LoanPortfolioStatsService portfolioStatsService;
     private final CustomerClient customerClient;
+    private final CustomerBatchClient customerBatchClient;
+    private final CustomerCache customerCache;
     private final LoanEventProducer loanEventProducer;
+    private final EntityManager entityManager;
+
+    @Value("${loan.customer-batch-size:200}")
+    private int customerBatchSize;
 
     @Transactional
     public LoanResponse createLoan(LoanRequest request) {
         // Validar cliente
         CustomerResponse customer = getCustomerWithFallback(request.getCustomerId());
 
-        // Validar tipo de préstamo
-        LoanType loanType = loanTypeRepository.findById(request.getLoanTypeId())
+        // Validar tipo de préstamo (desde el catálogo en memoria)
+        LoanTypeResponse loanType = loanTypeCatalog.findById(request.getLoanTypeId())
                 .orElseThrow(() -> new RuntimeException("Tipo de préstamo no encontrado"));
 
         // Validar monto
-        if (request.getAmount().compareTo(loanType.getMinAmount()) < 0 ||
-                request.getAmount().compareTo(loanType.getMaxAmount()) > 0) {
+        if (request.getAmount().compareTo(loanType.minAmount()) < 0 ||
+                request.getAmount().compareTo(loanType.maxAmount()) > 0) {
             throw new RuntimeException("Monto fuera del rango permitido");
         }
 
         // Validar plazo
-        if (request.getTermMonths() < loanType.getMinTermMonths() ||
-                request.getTermMonths() > loanType.getMaxTermMonths()) {
+        if (request.getTermMonths() < loanType.minTermMonths() ||
+                request.getTermMonths() > loanType.maxTermMonths()) {
             throw new RuntimeException("Plazo fuera del rango permitido");
         }
 
         // Crear préstamo
         Loan loan = new Loan();
         loan.setCustomerId(request.getCustomerId());
-        loan.setLoanType(loanType);
+        loan.setLoanType(loanTypeRepository.getReferenceById(loanType.id()));
         loan.setAmount(request.getAmount());
-        loan.setInterestRate(loanType.getInterestRate());
+        loan.setInterestRate(loanType.interestRate());
         loan.setTermMonths(request.getTermMonths());
         loan.setPurpose(request.getPurpose());
         loan.setStatus(LoanStatus.PENDING);
@@ -68,6 +91,7 @@ public class LoanServiceImpl implements LoanService {
         calculateLoanAmounts(loan);
 
         loan = loanRepository.save(loan);
+        portfolioStatsService.recordCreated(loanType.id(), loan.getStatus(), loan.getAmount());
 
         loanEventProducer.sendLoanCreated(new LoanCreatedEvent(
                 loan.getId(),
@@ -101,22 +125,59 @@ public class LoanServiceImpl implements LoanService {
 
     @Transactional(readOnly = true)
     public List<LoanResponse> getAllLoans() {
-        return loanRepository.findAll().stream()
-                .map(loan -> {
-                    CustomerResponse customer = getCustomerWithFallback(loan.getCustomerId());
-                    return mapToResponse(loan, customer);
-                })
-                .collect(Collectors.toList());
+        return mapToResponses(loanRepository.findAll());
     }
 
     @Transactional(readOnly = true)
     public List<LoanResponse> getLoansByStatus(LoanStatus status) {
-        return loanRepository.findByStatus(status).stream()
-                .map(loan -> {
-                    CustomerResponse customer = getCustomerWithFallback(loan.getCustomerId());
-                    return mapToResponse(loan, customer);
-                })
-                .collect(Collectors.toList());
+        return mapToResponses(loanRepository.findByStatus(status));
+    }
+
+    @Transactional(readOnly = true)
+    public LoanPageResponse getLoansPage(LoanStatus status, Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long after = cursor != null ? cursor : 0L;
+
+        // Se pide un registro extra para saber si existe una página siguiente
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Loan> loans = status == null
+                ? loanRepository.findByIdGreaterThanOrderByIdAsc(after, limit)
+                : loanRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, after, limit);
+
+        boolean hasMore = loans.size() > pageSize;
+        if (hasMore) {
+            loans = loans.subList(0, pageSize);
+        }
+        Long nextCursor = hasMore ? loans.get(loans.size() - 1).getId() : null;
+
+        return new LoanPageResponse(mapToResponses(loans), nextCursor, hasMore);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamLoans(LoanStatus status, Consumer<LoanResponse> sink) {
+        try (Stream<Loan> loans = status == null
+                ? loanRepository.streamAll()
+                : loanRepository.streamByStatus(status)) {
+
+            List<Loan> chunk = new ArrayList<>(customerBatchSize);
+            loans.forEach(loan -> {
+                chunk.add(loan);
+                if (chunk.size() == customerBatchSize) {
+                    flushChunk(chunk, sink);
+                }
+            });
+            flushChunk(chunk, sink);
+        }
+    }
+
+    private void flushChunk(List<Loan> chunk, Consumer<LoanResponse> sink) {
+        if (chunk.isEmpty()) return;
+
+        mapToResponses(chunk).forEach(sink);
+
+        // Liberar las entidades ya escritas para que el contexto de persistencia no crezca
+        chunk.forEach(entityManager::detach);
+        chunk.clear();
     }
 
     @Transactional
@@ -124,12 +185,11 @@ public class LoanServiceImpl implements LoanService {
         Loan loan = loanRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Préstamo no encontrado"));
 
-        if (loan.getStatus() != LoanStatus.PENDING) {
-            throw new RuntimeException("Solo se pueden aprobar préstamos pendientes");
-        }
+        LoanStatus previousStatus = loan.getStatus();
+        BigDecimal previousAmount = loan.getAmount();
+        transition(loan, LoanStatus.PENDING, LoanStatus.APPROVED, "Solo se pueden aprobar préstamos pendientes");
 
         loan.setApprovedAmount(request.getApprovedAmount());
-        loan.setStatus(LoanStatus.APPROVED);
         loan.setApprovalDate(LocalDateTime.now());
         loan.setEvaluatedBy(request.getEvaluatedBy());
 
@@ -138,6 +198,7 @@ public class LoanServiceImpl implements LoanService {
         calculateLoanAmounts(loan);
 
         loan = loanRepository.save(loan);
+        recordStatsChange(loan, previousStatus, previousAmount, null);
 
         CustomerResponse customer = getCustomerWithFallback(loan.getCustomerId());
 
@@ -156,16 +217,15 @@ public class LoanServiceImpl implements LoanService {
         Loan loan = loanRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Préstamo no encontrado"));
 
-        if (loan.getStatus() != LoanStatus.PENDING) {
-            throw new RuntimeException("Solo se pueden rechazar préstamos pendientes");
-        }
+        LoanStatus previousStatus = loan.getStatus();
+        transition(loan, LoanStatus.PENDING, LoanStatus.REJECTED, "Solo se pueden rechazar préstamos pendientes");
 
-        loan.setStatus(LoanStatus.REJECTED);
         loan.setRejectionDate(LocalDateTime.now());
         loan.setRejectionReason(request.getRejectionReason());
         loan.setEvaluatedBy(request.getEvaluatedBy());
 
         loan = loanRepository.save(loan);
+        recordStatsChange(loan, previousStatus, loan.getAmount(), null);
 
         CustomerResponse customer = getCustomerWithFallback(loan.getCustomerId());
 
@@ -183,15 +243,15 @@ public class LoanServiceImpl implements LoanService {
         Loan loan = loanRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Préstamo no encontrado"));
 
-        if (loan.getStatus() != LoanStatus.APPROVED) {
-            throw new RuntimeException("Solo se pueden desembolsar préstamos aprobados");
-        }
+        LoanStatus previousStatus = loan.getStatus();
+        BigDecimal previousBalance = loan.getOutstandingBalance();
+        transition(loan, LoanStatus.APPROVED, LoanStatus.ACTIVE, "Solo se pueden desembolsar préstamos aprobados");
 
-        loan.setStatus(LoanStatus.ACTIVE);
         loan.setDisbursementDate(LocalDateTime.now());
         loan.setOutstandingBalance(loan.getTotalAmount());
 
         loan = loanRepository.save(loan);
+        recordStatsChange(loan, previousStatus, loan.getAmount(), previousBalance);
 
         CustomerResponse customer = getCustomerWithFallback(loan.getCustomerId());
 
@@ -202,41 +262,86 @@ public class LoanServiceImpl implements LoanService {
                 loan.getMonthlyPayment(),
                 loan.getTermMonths(),
                 loan.getDisbursementDate(),
-                loan.getInterestRate()
+                loan.getInterestRate(),
+                loan.getAmount()
         ));
 
         return mapToResponse(loan, customer);
     }
 
+    // Valida la transición y la aplica con un UPDATE condicionado al estado actual,
+    // de modo que dos solicitudes concurrentes no pueden pasar ambas la validación.
+    // Cada acción exige su estado de origen: que el ciclo de vida permita llegar al destino
+    // (p. ej. DEFAULTED -> ACTIVE) no habilita a esta acción a hacerlo.
+    private void transition(Loan loan, LoanStatus expected, LoanStatus target, String errorMessage) {
+        LoanStatus current = loan.getStatus();
+        if (current != expected || !current.canTransitionTo(target)
+                || loanRepository.updateStatusIfCurrent(loan.getId(), current, target) == 0) {
+            throw new RuntimeException(errorMessage);
+        }
+        loan.setStatus(target);
+    }
+
+    private void recordStatsChange(Loan loan, LoanStatus previousStatus,
+                                   BigDecimal previousAmount, BigDecimal previousBalance) {
+        portfolioStatsService.recordChange(loan.getLoanType().getId(),
+                previousStatus, previousAmount, previousBalance,
+                loan.getStatus(), loan.getAmount(), loan.getOutstandingBalance());
+    }
+
     // Cálculo de cuota mensual (sistema francés)
     private void calculateLoanAmounts(Loan loan) {
-        BigDecimal principal = loan.getAmount();
-        BigDecimal monthlyRate = loan.getInterestRate()
-                .divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP)
-                .divide(BigDecimal.valueOf(12), 6, RoundingMode.HALF_UP);
-
+        long principal = AmortizationCalculator.toCents(loan.getAmount());
+        long monthlyRate = AmortizationCalculator.monthlyRateMicros(loan.getInterestRate());
         int months = loan.getTermMonths();
 
-        // Fórmula: M = P * [r(1+r)^n] / [(1+r)^n - 1]
-        BigDecimal onePlusRate = BigDecimal.ONE.add(monthlyRate);
-        BigDecimal power = onePlusRate.pow(months);
-
-        BigDecimal monthlyPayment = principal
-                .multiply(monthlyRate.multiply(power))
-                .divide(power.subtract(BigDecimal.ONE), 2, RoundingMode.HALF_UP);
+        long monthlyPayment = AmortizationCalculator.annuityPaymentCents(principal, monthlyRate, months);
+        // Total = suma de las cuotas del cronograma (la última absorbe el residuo de redondeo)
+        long totalAmount = AmortizationCalculator.totalPaymentCents(
+                AmortizationSystem.FRENCH, principal, monthlyRate, months);
 
-        BigDecimal totalAmount = monthlyPayment.multiply(BigDecimal.valueOf(months));
-
-        loan.setMonthlyPayment(monthlyPayment);
-        loan.setTotalAmount(totalAmount);
+        loan.setMonthlyPayment(AmortizationCalculator.fromCents(monthlyPayment));
+        loan.setTotalAmount(AmortizationCalculator.fromCents(totalAmount));
     }
 
     @CircuitBreaker(name = "customer-service", fallbackMethod = "getCustomerFallback")
     public CustomerResponse getCustomerWithFallback(Long customerId) {
-        return customerClient.getCustomerById(customerId);
+        CustomerResponse cached = customerCache.get(customerId);
+        if (cached != null) {
+            return cached;
+        }
+
+        CustomerResponse customer = customerClient.getCustomerById(customerId);
+        customerCache.put(customer);
+        return customer;
+    }
+
+    public CustomerResponse getCustomerFallback(Long customerId, Exception e) {
+        return unavailableCustomer(customerId);
     }
 
-        public CustomerResponse getCustomerFallback(Long customerId, Exception e) {
+    // Consulta los clientes en lotes (una llamada por lote en lugar de una por préstamo)
+    private Map<Long, CustomerResponse> getCustomersByIds(Collection<Long> customerIds) {
+        Map<Long, CustomerResponse> customers = new HashMap<>(customerCache.getAll(customerIds));
+        List<Long> ids = customerIds.stream()
+                .filter(id -> !customers.containsKey(id))
+                .collect(Collectors.toList());
+
+        for (int from = 0; from < ids.size(); from += customerBatchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + customerBatchSize, ids.size()));
+            for (CustomerResponse customer : customerBatchClient.getCustomers(chunk)) {
+                customers.put(customer.getId(), customer);
+            }
+        }
+
+        // Los IDs que no llegaron en la respuesta usan el mismo fallback que la consulta individual
+        for (Long id : customerIds) {
+            customers.computeIfAbsent(id, this::unavailableCustomer);
+        }
+        return customers;
+    }
+
+    private CustomerResponse unavailableCustomer(Long customerId) {
         CustomerResponse fallback = new CustomerResponse();
         fallback.setId(customerId);
         fallback.setFirstName("N/A");
@@ -244,13 +349,25 @@ public class LoanServiceImpl implements LoanService {
         return fallback;
     }
 
+    private List<LoanResponse> mapToResponses(List<Loan> loans) {
+        Map<Long, CustomerResponse> customers = getCustomersByIds(loans.stream()
+                .map(Loan::getCustomerId)
+                .collect(Collectors.toSet()));
+
+        return loans.stream()
+                .map(loan -> mapToResponse(loan, customers.get(loan.getCustomerId())))
+                .collect(Collectors.toList());
+    }
+
     private LoanResponse mapToResponse(Loan loan, CustomerResponse customer) {
         LoanResponse response = new LoanResponse();
         response.setId(loan.getId());
         response.setCustomerId(loan.getCustomerId());
         response.setCustomerName(customer.getFirstName() + " " + customer.getLastName());
         response.setLoanTypeId(loan.getLoanType().getId());
-        response.setLoanTypeName(loan.getLoanType().getName());
+        response.setLoanTypeName(loanTypeCatalog.findById(loan.getLoanType().getId())
+                .map(LoanTypeResponse::name)
+                .orElse(null));
         response.setAmount(loan.getAmount());
         response.setApprovedAmount(loan.getApprovedAmount());
         response.setInterestRate(loan.getInterestRate());
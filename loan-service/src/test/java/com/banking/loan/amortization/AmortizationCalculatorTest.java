@@ -0,0 +1,155 @@
+package com.banking.loan.amortization;
+
+import com.banking.loan.enums.AmortizationSystem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Valores de referencia del motor de amortización. payment-service tiene la misma prueba sobre
+// su copia del motor: si una de las dos cambia, el cronograma y la cuota dejan de coincidir.
+class AmortizationCalculatorTest {
+
+    private static final long RATE_12_PERCENT = 10_000L; // 1 % mensual
+
+    private record Row(int number, long payment, long principal, long interest, long remaining) {}
+
+    private static List<Row> schedule(AmortizationSystem system, long principalCents, long rateMicros, int months) {
+        List<Row> rows = new ArrayList<>();
+        AmortizationCalculator.forEachInstallment(system, principalCents, rateMicros, months,
+                (number, payment, principal, interest, remaining) ->
+                        rows.add(new Row(number, payment, principal, interest, remaining)));
+        return rows;
+    }
+
+    @Test
+    void monthlyRateIsAnnualPercentOver1200RoundedHalfUp() {
+        assertThat(AmortizationCalculator.monthlyRateMicros(new BigDecimal("12"))).isEqualTo(10_000L);
+        assertThat(AmortizationCalculator.monthlyRateMicros(new BigDecimal("15.5"))).isEqualTo(12_917L);
+        assertThat(AmortizationCalculator.monthlyRateMicros(new BigDecimal("18.75"))).isEqualTo(15_625L);
+        assertThat(AmortizationCalculator.monthlyRateMicros(BigDecimal.ZERO)).isZero();
+    }
+
+    @Test
+    void interestIsRoundedHalfUpToCents() {
+        assertThat(AmortizationCalculator.interestCents(50, RATE_12_PERCENT)).isEqualTo(1);
+        assertThat(AmortizationCalculator.interestCents(49, RATE_12_PERCENT)).isZero();
+        assertThat(AmortizationCalculator.interestCents(1_000_000, RATE_12_PERCENT)).isEqualTo(10_000);
+    }
+
+    @Test
+    void frenchScheduleMatchesGoldenValues() {
+        List<Row> rows = schedule(AmortizationSystem.FRENCH, 1_000_000, RATE_12_PERCENT, 12);
+
+        assertThat(rows).hasSize(12);
+        assertThat(rows.get(0)).isEqualTo(new Row(1, 88_849, 78_849, 10_000, 921_151));
+        assertThat(rows.get(1)).isEqualTo(new Row(2, 88_849, 79_637, 9_212, 841_514));
+        assertThat(rows.get(10)).isEqualTo(new Row(11, 88_849, 87_098, 1_751, 87_967));
+        // La última cuota absorbe el residuo de redondeo
+        assertThat(rows.get(11)).isEqualTo(new Row(12, 88_847, 87_967, 880, 0));
+        assertThat(AmortizationCalculator.totalPaymentCents(AmortizationSystem.FRENCH, 1_000_000, RATE_12_PERCENT, 12))
+                .isEqualTo(1_066_186);
+    }
+
+    @Test
+    void frenchPaymentMatchesGoldenValues() {
+        long rate = AmortizationCalculator.monthlyRateMicros(new BigDecimal("18.75"));
+        assertThat(AmortizationCalculator.annuityPaymentCents(2_500_000, rate, 36)).isEqualTo(91_324);
+        assertThat(AmortizationCalculator.totalPaymentCents(AmortizationSystem.FRENCH, 2_500_000, rate, 36))
+                .isEqualTo(3_287_682);
+    }
+
+    @Test
+    void frenchPaymentMatchesTextbookFormula() {
+        long[] principals = {100_000, 1_000_000, 2_500_000, 12_345_678};
+        String[] annualRates = {"0.5", "7.25", "12", "18.75", "36"};
+        int[] terms = {1, 6, 12, 36, 60, 360};
+
+        for (long principal : principals) {
+            for (String annualRate : annualRates) {
+                long rate = AmortizationCalculator.monthlyRateMicros(new BigDecimal(annualRate));
+                for (int months : terms) {
+                    assertThat(AmortizationCalculator.annuityPaymentCents(principal, rate, months))
+                            .as("P=%d r=%s n=%d", principal, annualRate, months)
+                            .isEqualTo(textbookPayment(principal, rate, months));
+                }
+            }
+        }
+    }
+
+    @Test
+    void germanScheduleMatchesGoldenValues() {
+        List<Row> rows = schedule(AmortizationSystem.GERMAN, 1_000_000, RATE_12_PERCENT, 12);
+
+        assertThat(rows).hasSize(12);
+        assertThat(rows.get(0)).isEqualTo(new Row(1, 93_333, 83_333, 10_000, 916_667));
+        assertThat(rows.get(1)).isEqualTo(new Row(2, 92_500, 83_333, 9_167, 833_334));
+        assertThat(rows.get(11)).isEqualTo(new Row(12, 84_170, 83_337, 833, 0));
+        assertThat(AmortizationCalculator.totalPaymentCents(AmortizationSystem.GERMAN, 1_000_000, RATE_12_PERCENT, 12))
+                .isEqualTo(1_065_000);
+    }
+
+    @Test
+    void bulletScheduleRepaysPrincipalAtTheEnd() {
+        List<Row> rows = schedule(AmortizationSystem.BULLET, 1_000_000, RATE_12_PERCENT, 12);
+
+        assertThat(rows).hasSize(12);
+        assertThat(rows.subList(0, 11)).allMatch(row ->
+                row.payment() == 10_000 && row.principal() == 0 && row.remaining() == 1_000_000);
+        assertThat(rows.get(11)).isEqualTo(new Row(12, 1_010_000, 1_000_000, 10_000, 0));
+    }
+
+    @Test
+    void zeroRateSplitsPrincipalEvenly() {
+        assertThat(AmortizationCalculator.annuityPaymentCents(500_000, 0, 10)).isEqualTo(50_000);
+
+        List<Row> rows = schedule(AmortizationSystem.FRENCH, 100_000, 0, 3);
+        assertThat(rows).extracting(Row::payment).containsExactly(33_333L, 33_333L, 33_334L);
+        assertThat(rows).extracting(Row::interest).containsOnly(0L);
+    }
+
+    @Test
+    void principalIsFullyRepaidWithoutNegativeBalances() {
+        for (AmortizationSystem system : AmortizationSystem.values()) {
+            long rate = AmortizationCalculator.monthlyRateMicros(new BigDecimal("29.9"));
+            List<Row> rows = schedule(system, 12_345_678, rate, 48);
+
+            assertThat(rows.stream().mapToLong(Row::principal).sum()).as(system.name()).isEqualTo(12_345_678);
+            assertThat(rows).as(system.name()).allMatch(row -> row.remaining() >= 0 && row.principal() >= 0);
+            assertThat(rows.getLast().remaining()).as(system.name()).isZero();
+        }
+    }
+
+    @Test
+    void centsConversionRoundsHalfUp() {
+        assertThat(AmortizationCalculator.toCents(new BigDecimal("10.005"))).isEqualTo(1_001);
+        assertThat(AmortizationCalculator.toCents(new BigDecimal("10.004"))).isEqualTo(1_000);
+        assertThat(AmortizationCalculator.fromCents(88_849)).isEqualByComparingTo("888.49");
+    }
+
+    @Test
+    void rejectsInvalidTerms() {
+        assertThatThrownBy(() -> AmortizationCalculator.annuityPaymentCents(1_000_000, RATE_12_PERCENT, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> schedule(AmortizationSystem.FRENCH, 1_000_000, RATE_12_PERCENT, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // M = P * r(1+r)^n / ((1+r)^n - 1), con BigDecimal de alta precisión y redondeo final HALF_UP
+    private static long textbookPayment(long principalCents, long rateMicros, int months) {
+        MathContext mc = new MathContext(60, RoundingMode.HALF_EVEN);
+        BigDecimal rate = BigDecimal.valueOf(rateMicros, 6);
+        BigDecimal power = BigDecimal.ONE.add(rate).pow(months, mc);
+        return BigDecimal.valueOf(principalCents)
+                .multiply(rate.multiply(power, mc), mc)
+                .divide(power.subtract(BigDecimal.ONE), mc)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+}
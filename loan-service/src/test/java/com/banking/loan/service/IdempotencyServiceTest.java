@@ -0,0 +1,135 @@
+package com.banking.loan.service;
+
+import com.banking.loan.dto.LoanResponse;
+import com.banking.loan.entity.IdempotencyRecord;
+import com.banking.loan.enums.LoanStatus;
+import com.banking.loan.event.LoanDisbursedEvent;
+import com.banking.loan.kafka.LoanEventProducer;
+import com.banking.loan.repository.IdempotencyRecordRepository;
+import com.banking.loan.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// Reintentos con la misma Idempotency-Key: reciben la respuesta guardada, también si llegan
+// mientras la primera petición aún no confirmaba, y nunca generan un segundo evento en outbox
+class IdempotencyServiceTest {
+
+    private static final String KEY = "6f1c2a9e-disburse";
+    private static final String OPERATION = "disburse:1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Map<String, IdempotencyRecord> committed = new HashMap<>();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private IdempotencyRecordRepository recordRepository;
+    private OutboxEventRepository outboxRepository;
+    private IdempotencyService idempotencyService;
+    private Supplier<LoanResponse> disburse;
+
+    @BeforeEach
+    void setUp() {
+        recordRepository = mock(IdempotencyRecordRepository.class);
+        when(recordRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(committed.get(invocation.<String>getArgument(0))));
+        when(recordRepository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            committed.put(record.getIdempotencyKey(), record);
+            return record;
+        });
+        when(recordRepository.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        idempotencyService = new IdempotencyService(recordRepository, objectMapper, transactionManager);
+
+        outboxRepository = mock(OutboxEventRepository.class);
+        LoanEventProducer producer = new LoanEventProducer(outboxRepository, objectMapper);
+        disburse = () -> {
+            executions.incrementAndGet();
+            producer.sendLoanDisbursed(new LoanDisbursedEvent(1L, 7L, new BigDecimal("12000.00"),
+                    new BigDecimal("1000.00"), 12, LocalDateTime.now(), new BigDecimal("12.00"),
+                    new BigDecimal("10000.00")));
+            return response(LoanStatus.ACTIVE);
+        };
+    }
+
+    @Test
+    void replayReturnsStoredResponseWithoutSecondOutboxEvent() {
+        LoanResponse first = idempotencyService.execute(KEY, OPERATION, disburse);
+        LoanResponse replay = idempotencyService.execute(KEY, OPERATION, disburse);
+
+        assertThat(replay).isEqualTo(first);
+        assertThat(executions.get()).isEqualTo(1);
+        verify(outboxRepository, times(1)).save(any());
+    }
+
+    @Test
+    void concurrentRetryGetsTheCommittedResponse() throws Exception {
+        // La primera petición confirma mientras el reintento espera en la PK: su INSERT falla
+        // por clave duplicada y el registro ya tiene la respuesta
+        IdempotencyRecord first = new IdempotencyRecord();
+        first.setIdempotencyKey(KEY);
+        first.setOperation(OPERATION);
+        first.setResponseBody(objectMapper.writeValueAsString(response(LoanStatus.ACTIVE)));
+        doAnswer(invocation -> {
+            committed.put(KEY, first);
+            throw new DataIntegrityViolationException("Duplicate entry for key 'PRIMARY'");
+        }).when(recordRepository).saveAndFlush(any(IdempotencyRecord.class));
+
+        LoanResponse response = idempotencyService.execute(KEY, OPERATION, disburse);
+
+        assertThat(response.getId()).isEqualTo(1L);
+        assertThat(response.getStatus()).isEqualTo(LoanStatus.ACTIVE);
+        assertThat(executions.get()).isZero();
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    void keyReusedForAnotherOperationIsRejected() {
+        idempotencyService.execute(KEY, OPERATION, disburse);
+
+        assertThatThrownBy(() -> idempotencyService.execute(KEY, "approve:1", disburse))
+                .hasMessageContaining("otra operación");
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void integrityViolationFromTheActionIsPropagated() {
+        // La clave no llegó a confirmarse: la violación es de la operación, no un reintento
+        DataIntegrityViolationException failure =
+                new DataIntegrityViolationException("Duplicate entry for key 'loans.uk_loan'");
+        Supplier<LoanResponse> failing = () -> {
+            committed.clear();
+            throw failure;
+        };
+
+        assertThatThrownBy(() -> idempotencyService.execute(KEY, OPERATION, failing)).isSameAs(failure);
+    }
+
+    private static LoanResponse response(LoanStatus status) {
+        LoanResponse response = new LoanResponse();
+        response.setId(1L);
+        response.setCustomerId(7L);
+        response.setStatus(status);
+        response.setOutstandingBalance(new BigDecimal("12000.00"));
+        return response;
+    }
+}
@@ -0,0 +1,161 @@
+package com.banking.loan.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mysql.MySQLContainer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Miles de eventos payment-received en paralelo contra los mismos préstamos, sobre MySQL real:
+// el descuento atómico del saldo no debe perder ninguna actualización. Sin Docker se omite.
+@Testcontainers(disabledWithoutDocker = true)
+class LoanBalanceServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int MAX_RETRIES = 10;
+
+    @Container
+    private static final MySQLContainer MYSQL = new MySQLContainer("mysql:8.0");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static LoanBalanceService balanceService;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(MYSQL.getJdbcUrl());
+        dataSource.setUsername(MYSQL.getUsername());
+        dataSource.setPassword(MYSQL.getPassword());
+        dataSource.setMaximumPoolSize(THREADS);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        balanceService = new LoanBalanceService(jdbcTemplate, mock(LoanPortfolioStatsService.class));
+
+        jdbcTemplate.execute("CREATE TABLE loans (" +
+                "id BIGINT PRIMARY KEY, loan_type_id BIGINT, status VARCHAR(20) NOT NULL, " +
+                "amount DECIMAL(12,2) NOT NULL, outstanding_balance DECIMAL(12,2), " +
+                "completion_date DATETIME, version BIGINT NOT NULL DEFAULT 0)");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void resetLoans() {
+        jdbcTemplate.update("DELETE FROM loans");
+        jdbcTemplate.update("INSERT INTO loans (id, loan_type_id, status, amount, outstanding_balance) " +
+                "VALUES (1, 1, 'ACTIVE', 20000.00, 20000.00), (2, 1, 'ACTIVE', 20000.00, 20000.00)");
+    }
+
+    @Test
+    void parallelPaymentsOnOneLoanAreNotLost() throws Exception {
+        int events = 2000;
+        runInParallel(events, i -> Map.of(1L, new BigDecimal("7.50")));
+
+        assertThat(balance(1L)).isEqualByComparingTo("5000.00");
+        assertThat(status(1L)).isEqualTo("ACTIVE");
+        assertThat(version(1L)).isEqualTo(events);
+    }
+
+    @Test
+    void parallelBatchesSpanningSeveralLoansAreNotLost() throws Exception {
+        int events = 2000;
+        // Lotes con los dos préstamos, como los agrupa el consumidor por poll
+        runInParallel(events, i -> Map.of(1L, new BigDecimal("3.00"), 2L, new BigDecimal("4.25")));
+
+        assertThat(balance(1L)).isEqualByComparingTo("14000.00");
+        assertThat(balance(2L)).isEqualByComparingTo("11500.00");
+        assertThat(version(1L)).isEqualTo(events);
+        assertThat(version(2L)).isEqualTo(events);
+    }
+
+    @Test
+    void overpaymentStopsAtZeroAndCompletesTheLoanOnce() throws Exception {
+        int events = 1000;
+        runInParallel(events, i -> Map.of(2L, new BigDecimal("25.00")));
+
+        assertThat(balance(2L)).isEqualByComparingTo("0.00");
+        assertThat(status(2L)).isEqualTo("COMPLETED");
+        // Un incremento por descuento y uno solo por el paso a COMPLETED
+        assertThat(version(2L)).isEqualTo(events + 1);
+    }
+
+    private interface PaymentBatch {
+        Map<Long, BigDecimal> principalByLoan(int event);
+    }
+
+    private void runInParallel(int events, PaymentBatch batch) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(events);
+            for (int i = 0; i < events; i++) {
+                Map<Long, BigDecimal> principalByLoan = new TreeMap<>(batch.principalByLoan(i));
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    applyWithRetry(principalByLoan);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Igual que PaymentEventConsumer: deadlocks y timeouts de bloqueo se reintentan
+    private void applyWithRetry(Map<Long, BigDecimal> principalByLoan) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> balanceService.applyPrincipalPayments(principalByLoan));
+                return;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_RETRIES) throw e;
+                Thread.sleep(10L * attempt);
+            }
+        }
+    }
+
+    private BigDecimal balance(Long loanId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT outstanding_balance FROM loans WHERE id = ?", BigDecimal.class, loanId);
+    }
+
+    private String status(Long loanId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM loans WHERE id = ?", String.class, loanId);
+    }
+
+    private long version(Long loanId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM loans WHERE id = ?", Long.class, loanId);
+    }
+}
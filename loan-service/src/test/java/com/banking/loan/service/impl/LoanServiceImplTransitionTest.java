@@ -0,0 +1,166 @@
+package com.banking.loan.service.impl;
+
+import com.banking.loan.client.CustomerBatchClient;
+import com.banking.loan.client.CustomerCache;
+import com.banking.loan.client.CustomerClient;
+import com.banking.loan.dto.CustomerResponse;
+import com.banking.loan.dto.LoanResponse;
+import com.banking.loan.entity.Loan;
+import com.banking.loan.entity.LoanType;
+import com.banking.loan.entity.OutboxEvent;
+import com.banking.loan.enums.LoanStatus;
+import com.banking.loan.kafka.LoanEventProducer;
+import com.banking.loan.repository.LoanRepository;
+import com.banking.loan.repository.LoanTypeRepository;
+import com.banking.loan.repository.OutboxEventRepository;
+import com.banking.loan.service.LoanPortfolioStatsService;
+import com.banking.loan.service.LoanTypeCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Guardas de estado de aprobar/rechazar/desembolsar: cada acción exige su estado de origen y,
+// si el UPDATE condicional pierde la carrera, no quedan efectos (saldo, estadísticas, outbox)
+class LoanServiceImplTransitionTest {
+
+    private static final Long LOAN_ID = 1L;
+    private static final Long CUSTOMER_ID = 7L;
+
+    private LoanRepository loanRepository;
+    private LoanPortfolioStatsService portfolioStatsService;
+    private OutboxEventRepository outboxRepository;
+    private LoanServiceImpl loanService;
+
+    @BeforeEach
+    void setUp() {
+        loanRepository = mock(LoanRepository.class);
+        portfolioStatsService = mock(LoanPortfolioStatsService.class);
+        outboxRepository = mock(OutboxEventRepository.class);
+
+        CustomerCache customerCache = mock(CustomerCache.class);
+        CustomerResponse customer = new CustomerResponse();
+        customer.setId(CUSTOMER_ID);
+        customer.setFirstName("Ana");
+        customer.setLastName("Pérez");
+        when(customerCache.get(CUSTOMER_ID)).thenReturn(customer);
+
+        LoanTypeCatalog loanTypeCatalog = mock(LoanTypeCatalog.class);
+        when(loanTypeCatalog.findById(any())).thenReturn(Optional.empty());
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        loanService = new LoanServiceImpl(
+                loanRepository,
+                mock(LoanTypeRepository.class),
+                loanTypeCatalog,
+                portfolioStatsService,
+                mock(CustomerClient.class),
+                mock(CustomerBatchClient.class),
+                customerCache,
+                new LoanEventProducer(outboxRepository, new ObjectMapper().findAndRegisterModules()),
+                mock(EntityManager.class));
+    }
+
+    @Test
+    void disburseRequiresAnApprovedLoan() {
+        for (LoanStatus status : LoanStatus.values()) {
+            if (status == LoanStatus.APPROVED) continue;
+            Loan loan = givenLoan(status);
+
+            assertThatThrownBy(() -> loanService.disburseLoan(LOAN_ID))
+                    .as(status.name())
+                    .hasMessageContaining("Solo se pueden desembolsar préstamos aprobados");
+            assertThat(loan.getStatus()).isEqualTo(status);
+        }
+
+        verify(loanRepository, never()).updateStatusIfCurrent(any(), any(), any());
+        verifyNoInteractions(portfolioStatsService, outboxRepository);
+    }
+
+    @Test
+    void disburseOfDefaultedLoanKeepsBalanceAndDate() {
+        // DEFAULTED -> ACTIVE es válido en el ciclo de vida, pero no por la acción de desembolso
+        Loan loan = givenLoan(LoanStatus.DEFAULTED);
+        loan.setOutstandingBalance(new BigDecimal("4000.00"));
+
+        assertThatThrownBy(() -> loanService.disburseLoan(LOAN_ID)).isInstanceOf(RuntimeException.class);
+
+        assertThat(loan.getOutstandingBalance()).isEqualByComparingTo("4000.00");
+        assertThat(loan.getDisbursementDate()).isNull();
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    void disburseThatLosesTheRaceHasNoEffects() {
+        Loan loan = givenLoan(LoanStatus.APPROVED);
+        // Otra solicitud ya cambió el estado entre la lectura y el UPDATE condicional
+        when(loanRepository.updateStatusIfCurrent(LOAN_ID, LoanStatus.APPROVED, LoanStatus.ACTIVE)).thenReturn(0);
+
+        assertThatThrownBy(() -> loanService.disburseLoan(LOAN_ID))
+                .hasMessageContaining("Solo se pueden desembolsar préstamos aprobados");
+
+        assertThat(loan.getStatus()).isEqualTo(LoanStatus.APPROVED);
+        assertThat(loan.getOutstandingBalance()).isNull();
+        verify(loanRepository, never()).save(any(Loan.class));
+        verifyNoInteractions(portfolioStatsService, outboxRepository);
+    }
+
+    @Test
+    void disburseOfApprovedLoanQueuesOneEvent() {
+        Loan loan = givenLoan(LoanStatus.APPROVED);
+        when(loanRepository.updateStatusIfCurrent(LOAN_ID, LoanStatus.APPROVED, LoanStatus.ACTIVE)).thenReturn(1);
+
+        LoanResponse response = loanService.disburseLoan(LOAN_ID);
+
+        assertThat(response.getStatus()).isEqualTo(LoanStatus.ACTIVE);
+        assertThat(loan.getOutstandingBalance()).isEqualByComparingTo("12000.00");
+        ArgumentCaptor<OutboxEvent> outbox = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxRepository).save(outbox.capture());
+        assertThat(outbox.getValue().getTopic()).isEqualTo("loan-disbursed");
+    }
+
+    @Test
+    void approveAndRejectRequireAPendingLoan() {
+        for (LoanStatus status : List.of(LoanStatus.APPROVED, LoanStatus.ACTIVE, LoanStatus.REJECTED)) {
+            givenLoan(status);
+
+            assertThatThrownBy(() -> loanService.approveLoan(LOAN_ID, null))
+                    .as(status.name())
+                    .hasMessageContaining("Solo se pueden aprobar préstamos pendientes");
+            assertThatThrownBy(() -> loanService.rejectLoan(LOAN_ID, null))
+                    .as(status.name())
+                    .hasMessageContaining("Solo se pueden rechazar préstamos pendientes");
+        }
+
+        verify(loanRepository, never()).updateStatusIfCurrent(any(), any(), any());
+        verifyNoInteractions(outboxRepository);
+    }
+
+    private Loan givenLoan(LoanStatus status) {
+        LoanType loanType = new LoanType();
+        loanType.setId(3L);
+
+        Loan loan = new Loan();
+        loan.setId(LOAN_ID);
+        loan.setCustomerId(CUSTOMER_ID);
+        loan.setLoanType(loanType);
+        loan.setAmount(new BigDecimal("10000.00"));
+        loan.setInterestRate(new BigDecimal("12.00"));
+        loan.setTermMonths(12);
+        loan.setMonthlyPayment(new BigDecimal("1000.00"));
+        loan.setTotalAmount(new BigDecimal("12000.00"));
+        loan.setStatus(status);
+        when(loanRepository.findById(LOAN_ID)).thenReturn(Optional.of(loan));
+        return loan;
+    }
+}
@@ -0,0 +1,6 @@
+package com.banking.payment.amortization;
+
+@FunctionalInterface
+public interface InstallmentVisitor {
+    void accept(int number, long paymentCents, long principalCents, long interestCents, long remainingCents);
+}
@@ -1,24 +0,0 @@
-package com.banking.payment.config;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.kafka.common.serialization.Deserializer;
-
-public class GenericDeserializer<T> implements Deserializer<T> {
-    private final ObjectMapper objectMapper;
-    private final Class<T> targetType;
-
-    public GenericDeserializer(ObjectMapper objectMapper, Class<T> targetType) {
-        this.objectMapper = objectMapper;
-        this.targetType = targetType;
-    }
-
-    @Override
-    public T deserialize(String topic, byte[] data) {
-        if (data == null) return null;
-        try {
-            return objectMapper.readValue(data, targetType);
-        } catch (Exception e) {
-            throw new RuntimeException("Error deserializando en " + topic, e);
-        }
-    }
-}
\ No newline at end of file
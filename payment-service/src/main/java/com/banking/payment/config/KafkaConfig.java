@@ -1,9 +1,10 @@
 package com.banking.payment.config;
 
-import com.banking.payment.event.LoanDisbursedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -13,15 +14,41 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.*;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
 
+    public static final String LOAN_DISBURSED_RETRY_TOPIC = "loan-disbursed-retry";
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${payment.kafka.producer.linger-ms:20}")
+    private int producerLingerMs;
+
+    @Value("${payment.kafka.producer.batch-size:65536}")
+    private int producerBatchSize;
+
+    @Value("${payment.kafka.loan-disbursed.concurrency:3}")
+    private int loanDisbursedConcurrency;
+
+    @Value("${payment.kafka.loan-disbursed.max-poll-records:200}")
+    private int loanDisbursedMaxPollRecords;
+
+    @Value("${payment.kafka.loan-disbursed.retry-attempts:4}")
+    private int retryAttempts;
+
+    @Value("${payment.kafka.loan-disbursed.retry-initial-interval-ms:2000}")
+    private long retryInitialIntervalMs;
+
+    @Value("${payment.kafka.loan-disbursed.retry-max-interval-ms:60000}")
+    private long retryMaxIntervalMs;
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -36,6 +63,9 @@ public class KafkaConfig {
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // Los envíos de una carga masiva se agrupan en batches del productor
+        props.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
         DefaultKafkaProducerFactory<String, Object> factory =
                 new DefaultKafkaProducerFactory<>(props);
         factory.setValueSerializer(new Serializer<>() {
@@ -54,35 +84,75 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory);
     }
 
+    // Productor sin conversión JSON: reenvía a retry/DLT el payload tal como se consumió
+    @Bean
+    public KafkaTemplate<String, String> stringKafkaTemplate() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    // Los valores llegan como String y se parsean en el consumidor, así un mensaje
+    // malformado termina en el DLT en lugar de bloquear la partición
     @Bean
-    public ConsumerFactory<String, LoanDisbursedEvent> consumerFactory(ObjectMapper mapper) {
+    public ConsumerFactory<String, String> consumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "payment-service");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, loanDisbursedMaxPollRecords);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
 
-        org.apache.kafka.common.serialization.Deserializer<LoanDisbursedEvent> deserializer =
-                new GenericDeserializer<>(mapper, LoanDisbursedEvent.class);
+        DefaultKafkaConsumerFactory<String, String> factory = new DefaultKafkaConsumerFactory<>(props);
+        // Publica las métricas del cliente, incluido records-lag por topic y partición
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
 
-        return new DefaultKafkaConsumerFactory<>(
-                props,
-                new org.apache.kafka.common.serialization.StringDeserializer(),
-                deserializer
-        );
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String>
+    kafkaListenerContainerFactory(ConsumerFactory<String, String> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        return factory;
     }
 
+    // loan-disbursed por lotes: un consumidor por partición y, dentro del lote,
+    // procesamiento en paralelo por loanId
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, LoanDisbursedEvent>
-    kafkaListenerContainerFactory(
-            ConsumerFactory<String, LoanDisbursedEvent> consumerFactory) {
-        ConcurrentKafkaListenerContainerFactory<String, LoanDisbursedEvent> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, String>
+    loanDisbursedBatchContainerFactory(ConsumerFactory<String, String> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(loanDisbursedConcurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
         return factory;
     }
 
+    // Reintentos no bloqueantes con backoff exponencial; agotados, el mensaje va a loan-disbursed-retry-dlt
+    @Bean
+    public RetryTopicConfiguration loanDisbursedRetryTopic(KafkaTemplate<String, String> stringKafkaTemplate) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopic(LOAN_DISBURSED_RETRY_TOPIC)
+                .maxAttempts(retryAttempts)
+                .exponentialBackoff(retryInitialIntervalMs, 2.0, retryMaxIntervalMs)
+                .dltSuffix("-dlt")
+                .dltHandlerMethod("loanEventConsumer", "onDeadLetter")
+                .notRetryOn(JsonProcessingException.class)
+                .create(stringKafkaTemplate);
+    }
+
     @Bean public NewTopic loanDisbursedTopic() {
         return TopicBuilder.name("loan-disbursed").partitions(3).replicas(1).build(); }
+    @Bean public NewTopic loanDisbursedRetryTopicDefinition() {
+        return TopicBuilder.name(LOAN_DISBURSED_RETRY_TOPIC).partitions(3).replicas(1).build(); }
     @Bean public NewTopic paymentReceivedTopic() {
         return TopicBuilder.name("payment-received").partitions(3).replicas(1).build(); }
     @Bean public NewTopic paymentOverdueTopic() {
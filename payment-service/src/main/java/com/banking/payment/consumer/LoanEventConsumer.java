@@ -1,41 +1,170 @@
 package com.banking.payment.consumer;
 
-import com.banking.payment.client.LoanClient;
+import com.banking.payment.config.KafkaConfig;
 import com.banking.payment.dto.LoanResponse;
 import com.banking.payment.event.LoanDisbursedEvent;
+import com.banking.payment.service.LoanProjectionService;
 import com.banking.payment.service.PaymentScheduleService;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class LoanEventConsumer {
 
     private final PaymentScheduleService scheduleService;
-    private final LoanClient loanClient;
+    private final LoanProjectionService projectionService;
+    private final KafkaTemplate<String, String> stringKafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter deadLetterCounter;
 
-    @KafkaListener(topics = "loan-disbursed", groupId = "payment-service")
-    public void handleLoanDisbursed(LoanDisbursedEvent event) {
-        log.info("Received loan disbursed event: {}", event.getLoanId());
+    // Acota las transacciones simultáneas para no agotar el pool de conexiones
+    private final Semaphore inFlight;
+
+    public LoanEventConsumer(PaymentScheduleService scheduleService,
+                             LoanProjectionService projectionService,
+                             KafkaTemplate<String, String> stringKafkaTemplate,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${payment.kafka.loan-disbursed.max-in-flight:8}") int maxInFlight) {
+        this.scheduleService = scheduleService;
+        this.projectionService = projectionService;
+        this.stringKafkaTemplate = stringKafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.deadLetterCounter = meterRegistry.counter("payment.loan-disbursed.dead-letter");
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    // Cada lote se agrupa por key (loanId): los eventos de un mismo préstamo se procesan en orden
+    // y préstamos distintos en paralelo sobre hilos virtuales. Un evento que falla se reenvía
+    // al topic de reintentos junto con los siguientes de su préstamo; los offsets del lote se
+    // confirman cuando todos los grupos terminan.
+    @KafkaListener(topics = "loan-disbursed", groupId = "payment-service",
+            containerFactory = "loanDisbursedBatchContainerFactory")
+    public void handleLoanDisbursed(List<ConsumerRecord<String, String>> records) throws InterruptedException {
+        Map<String, List<ConsumerRecord<String, String>>> byKey = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            String key = record.key() != null ? record.key() : record.partition() + "-" + record.offset();
+            byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+        }
+
+        List<Future<?>> groups = new ArrayList<>(byKey.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<ConsumerRecord<String, String>> group : byKey.values()) {
+                groups.add(executor.submit(() -> processGroup(group)));
+            }
+        }
+
+        // Si un reenvío al topic de reintentos falló, el lote entero se vuelve a entregar
+        for (Future<?> group : groups) {
+            try {
+                group.get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error procesando lote de loan-disbursed", e.getCause());
+            }
+        }
+        log.info("Lote loan-disbursed procesado: {} eventos, {} préstamos", records.size(), byKey.size());
+    }
+
+    @KafkaListener(topics = KafkaConfig.LOAN_DISBURSED_RETRY_TOPIC, groupId = "payment-service")
+    public void retryLoanDisbursed(String payload) throws IOException, InterruptedException {
+        process(payload);
+    }
+
+    // Registrado como manejador del DLT en KafkaConfig.loanDisbursedRetryTopic
+    public void onDeadLetter(String payload, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+        deadLetterCounter.increment();
+        log.error("loan-disbursed descartado tras agotar reintentos ({}): {}", topic, payload);
+    }
+
+    // Tras el primer evento reenviado a reintentos, los siguientes del mismo préstamo van detrás
+    // de él sin procesarse, para que el préstamo conserve el orden de sus eventos
+    private void processGroup(List<ConsumerRecord<String, String>> group) {
+        boolean forwarding = false;
+        for (ConsumerRecord<String, String> record : group) {
+            if (!forwarding) {
+                try {
+                    process(record.value());
+                    continue;
+                } catch (Exception e) {
+                    log.warn("Error procesando loan-disbursed (partition={}, offset={}), se envía a reintentos: {}",
+                            record.partition(), record.offset(), e.getMessage());
+                    forwarding = true;
+                }
+            } else {
+                log.info("loan-disbursed (partition={}, offset={}) enviado a reintentos detrás de un evento " +
+                        "anterior del mismo préstamo", record.partition(), record.offset());
+            }
+            forwardToRetry(record);
+        }
+    }
+
+    private void forwardToRetry(ConsumerRecord<String, String> record) {
+        try {
+            stringKafkaTemplate.send(KafkaConfig.LOAN_DISBURSED_RETRY_TOPIC, record.key(), record.value()).get();
+        } catch (Exception sendError) {
+            throw new RuntimeException("No se pudo reenviar a " + KafkaConfig.LOAN_DISBURSED_RETRY_TOPIC, sendError);
+        }
+    }
+
+    private void process(String payload) throws IOException, InterruptedException {
+        LoanDisbursedEvent event = objectMapper.readValue(payload, LoanDisbursedEvent.class);
+
+        inFlight.acquire();
         try {
+            // Las reentregas (reintentos, rebalanceos) no deben duplicar el cronograma. Esta consulta
+            // solo evita trabajo; la garantía es uk_schedule_loan_installment (ver abajo)
+            if (scheduleService.hasSchedule(event.getLoanId())) {
+                log.info("Cronograma ya existente para préstamo {}, evento ignorado", event.getLoanId());
+                return;
+            }
+
+            projectionService.recordDisbursed(event);
+
             LocalDate startDate = event.getDisbursementDate().toLocalDate();
             // Construir LoanResponse con datos del evento
             LoanResponse loan = new LoanResponse();
             loan.setId(event.getLoanId());
             loan.setCustomerId(event.getCustomerId());
-            loan.setAmount(event.getTotalAmount());
+            // El cronograma se calcula sobre el capital; eventos antiguos no lo incluyen
+            loan.setAmount(event.getPrincipal() != null ? event.getPrincipal() : event.getTotalAmount());
+            loan.setTotalAmount(event.getTotalAmount());
             loan.setMonthlyPayment(event.getMonthlyPayment());
             loan.setTermMonths(event.getTermMonths());
             loan.setInterestRate(event.getInterestRate());
-            scheduleService.generateSchedule(loan, startDate);
+            try {
+                scheduleService.generateSchedule(loan, startDate);
+            } catch (DuplicateKeyException e) {
+                // Otra entrega del mismo evento generó el cronograma entre la consulta y el insert
+                log.info("Cronograma ya generado para préstamo {} por otra entrega, evento ignorado",
+                        event.getLoanId());
+                return;
+            }
             log.info("Schedule generated for loan: {}", event.getLoanId());
-        } catch (Exception e) {
-            log.error("Error processing event: {}", e.getMessage(), e);
+        } finally {
+            inFlight.release();
         }
     }
-}
\ No newline at end of file
+}
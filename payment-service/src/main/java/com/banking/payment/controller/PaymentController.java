@@ -1,16 +1,28 @@
 package com.banking.payment.controller;
 
+import com.banking.payment.dto.BulkPaymentResult;
+import com.banking.payment.dto.DailyCollectionResponse;
+import com.banking.payment.dto.PaymentPageResponse;
 import com.banking.payment.dto.PaymentRequest;
 import com.banking.payment.dto.PaymentResponse;
 import com.banking.payment.dto.PaymentScheduleResponse;
+import com.banking.payment.security.JwtAuthenticationFilter;
+import com.banking.payment.service.BulkPaymentService;
+import com.banking.payment.service.DailyCollectionService;
 import com.banking.payment.service.PaymentScheduleService;
 import com.banking.payment.service.PaymentService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -19,6 +31,8 @@ import java.util.List;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final BulkPaymentService bulkPaymentService;
+    private final DailyCollectionService dailyCollectionService;
     private final PaymentScheduleService scheduleService;
 
     @PostMapping
@@ -27,6 +41,34 @@ public class PaymentController {
                 .body(paymentService.processPayment(request));
     }
 
+    // Archivo de conciliación bancaria: CSV o NDJSON, procesado en streaming
+    @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasAnyRole('ADMIN', 'COBRANZA')")
+    public ResponseEntity<BulkPaymentResult> processBulkPayments(HttpServletRequest request,
+                                                                 Authentication authentication) throws IOException {
+        boolean ndjson = request.getContentType().startsWith("application/x-ndjson");
+        return ResponseEntity.ok(bulkPaymentService.ingest(request.getInputStream(), ndjson, authentication.getName()));
+    }
+
+    // Totales cobrados por día, leídos del libro diario
+    @GetMapping("/reports/daily")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COBRANZA')")
+    public ResponseEntity<List<DailyCollectionResponse>> getDailyCollections(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(dailyCollectionService.getDaily(from, to));
+    }
+
+    // Solo ADMIN: recalcula el libro diario del rango desde la tabla payments
+    @PostMapping("/reports/daily/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<DailyCollectionResponse>> rebuildDailyCollections(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        dailyCollectionService.rebuild(from, to);
+        return ResponseEntity.ok(dailyCollectionService.getDaily(from, to));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PaymentResponse> getPaymentById(@PathVariable Long id) {
         return ResponseEntity.ok(paymentService.getPaymentById(id));
@@ -37,6 +79,27 @@ public class PaymentController {
         return ResponseEntity.ok(paymentService.getPaymentsByLoan(loanId));
     }
 
+    @GetMapping("/loan/{loanId}/history")
+    public ResponseEntity<PaymentPageResponse> getPaymentHistoryByLoan(
+            @PathVariable Long loanId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(paymentService.getPaymentHistoryByLoan(loanId, page, size));
+    }
+
+    // Historial del cliente autenticado; el customerId sale del token, nunca de la URL
+    @GetMapping("/my-payments")
+    @PreAuthorize("hasRole('CLIENTE')")
+    public ResponseEntity<PaymentPageResponse> getMyPayments(
+            @RequestAttribute(name = JwtAuthenticationFilter.CUSTOMER_ID_ATTRIBUTE, required = false) Long customerId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (customerId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(paymentService.getPaymentHistoryByCustomer(customerId, page, size));
+    }
+
     @GetMapping("/schedule/loan/{loanId}")
     public ResponseEntity<List<PaymentScheduleResponse>> getScheduleByLoan(@PathVariable Long loanId) {
         return ResponseEntity.ok(scheduleService.getScheduleByLoan(loanId));
@@ -0,0 +1,16 @@
+package com.banking.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentLineResult {
+    private int line;
+    private boolean success;
+    private Long paymentId;
+    private Integer installmentNumber;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.banking.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkPaymentResult {
+    private int totalLines;
+    private int processed;
+    private int failed;
+    private List<BulkPaymentLineResult> lines;
+}
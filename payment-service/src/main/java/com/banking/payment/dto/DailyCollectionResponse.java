@@ -0,0 +1,20 @@
+package com.banking.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyCollectionResponse {
+    private LocalDate date;
+    private long paymentCount;
+    private BigDecimal totalAmount;
+    private BigDecimal principalCollected;
+    private BigDecimal interestCollected;
+    private BigDecimal lateFeesCollected;
+}
@@ -2,6 +2,7 @@ package com.banking.payment.dto;
 
 import lombok.Data;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 public class LoanResponse {
@@ -13,4 +14,6 @@ public class LoanResponse {
     private BigDecimal monthlyPayment;
     private BigDecimal totalAmount;
     private BigDecimal outstandingBalance;
+    private String status;
+    private LocalDateTime disbursementDate;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.banking.payment.dto;
+
+import com.banking.payment.enums.PaymentMethod;
+import com.banking.payment.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Proyección de solo lectura: la consulta selecciona estas columnas sin cargar la entidad Payment
+public record PaymentHistoryItem(
+        Long id,
+        Long loanId,
+        BigDecimal amount,
+        BigDecimal principalPaid,
+        BigDecimal interestPaid,
+        BigDecimal lateFee,
+        PaymentMethod paymentMethod,
+        PaymentStatus status,
+        LocalDateTime paymentDate,
+        LocalDate dueDate
+) {}
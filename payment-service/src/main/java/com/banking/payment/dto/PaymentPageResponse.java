@@ -0,0 +1,17 @@
+package com.banking.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentPageResponse {
+    private List<PaymentHistoryItem> content;
+    private int page;
+    private int size;
+    private boolean hasNext;   // Sin COUNT(*): solo indica si existe una página siguiente
+}
@@ -0,0 +1,41 @@
+package com.banking.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Totales cobrados por día; se incrementan en la misma transacción que cada pago
+@Entity
+@Table(name = "daily_collections")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyCollection {
+
+    @Id
+    private LocalDate collectionDate;
+
+    @Column(nullable = false)
+    private Long paymentCount = 0L;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal principalCollected = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal interestCollected = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal lateFeesCollected = BigDecimal.ZERO;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
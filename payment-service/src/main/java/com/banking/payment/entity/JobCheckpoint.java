@@ -0,0 +1,34 @@
+package com.banking.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Último id procesado por un job por lotes; permite reanudar tras un reinicio
+@Entity
+@Table(name = "job_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String jobName;
+
+    @Column(nullable = false)
+    private LocalDate runDate;
+
+    @Column(nullable = false)
+    private Long lastProcessedId;
+
+    private boolean completed;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,49 @@
+package com.banking.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Copia local de los datos del préstamo que necesita payment-service, alimentada por eventos
+@Entity
+@Table(name = "loan_projection", indexes = {
+        @Index(name = "idx_projection_customer", columnList = "customer_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanProjection {
+
+    @Id
+    private Long loanId;
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    @Column(length = 20)
+    private String status;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal principal;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal monthlyPayment;
+
+    @Column(precision = 5, scale = 2)
+    private BigDecimal interestRate;
+
+    private Integer termMonths;
+
+    private LocalDateTime disbursementDate;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
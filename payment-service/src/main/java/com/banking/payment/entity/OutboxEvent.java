@@ -0,0 +1,42 @@
+package com.banking.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Eventos escritos en la misma transacción que los pagos; OutboxRelay los publica en Kafka
+@Entity
+@Table(name = "outbox", indexes = {
+        @Index(name = "idx_outbox_key_id", columnList = "event_key, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    @Column(name = "event_key", length = 100)
+    private String eventKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    // Filas que no se pueden publicar (payload inválido): quedan para revisión y no se reintentan
+    private LocalDateTime failedAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+}
@@ -13,7 +13,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payment_date", columnList = "payment_date"),
+        @Index(name = "idx_payment_loan_date", columnList = "loan_id, payment_date DESC, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,7 +12,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payment_schedules")
+@Table(name = "payment_schedules", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_schedule_loan_installment", columnNames = {"loan_id", "installment_number"})
+}, indexes = {
+        @Index(name = "idx_schedule_loan_status_number", columnList = "loan_id, status, installment_number"),
+        @Index(name = "idx_schedule_status_due", columnList = "status, due_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
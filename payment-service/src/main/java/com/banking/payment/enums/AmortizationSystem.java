@@ -0,0 +1,7 @@
+package com.banking.payment.enums;
+
+public enum AmortizationSystem {
+    FRENCH,     //Cuota constante
+    GERMAN,     //Amortización de capital constante
+    BULLET      //Solo intereses y capital al vencimiento
+}
@@ -16,4 +16,5 @@ public class LoanDisbursedEvent {
     private Integer termMonths;
     private LocalDateTime disbursementDate;
     private BigDecimal interestRate;
+    private BigDecimal principal;
 }
@@ -0,0 +1,11 @@
+package com.banking.payment.repository;
+
+import com.banking.payment.entity.DailyCollection;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyCollectionRepository extends JpaRepository<DailyCollection, LocalDate> {
+    List<DailyCollection> findByCollectionDateBetweenOrderByCollectionDate(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,7 @@
+package com.banking.payment.repository;
+
+import com.banking.payment.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
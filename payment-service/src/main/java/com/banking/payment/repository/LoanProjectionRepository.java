@@ -0,0 +1,17 @@
+package com.banking.payment.repository;
+
+import com.banking.payment.entity.LoanProjection;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface LoanProjectionRepository extends JpaRepository<LoanProjection, Long> {
+
+    // SELECT ... FOR UPDATE sobre la fila del préstamo: serializa por préstamo el relleno de la ventana
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT lp FROM LoanProjection lp WHERE lp.loanId = :loanId")
+    Optional<LoanProjection> lockById(Long loanId);
+}
@@ -0,0 +1,22 @@
+package com.banking.payment.repository;
+
+import com.banking.payment.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED permite que varias réplicas drenen el outbox sin enviar las mismas filas.
+    // Solo se toma la fila pendiente más antigua de cada préstamo (event_key), así los eventos
+    // de un préstamo salen en el orden en que se escribieron
+    @Query(value = "SELECT o.* FROM outbox o WHERE o.failed_at IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox p WHERE p.event_key = o.event_key " +
+            "AND p.id < o.id AND p.failed_at IS NULL) " +
+            "ORDER BY o.id LIMIT :limit FOR UPDATE OF o SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(int limit);
+
+    long countByFailedAtIsNull();
+}
@@ -1,10 +1,27 @@
 package com.banking.payment.repository;
 
 import com.banking.payment.entity.Payment;
+import com.banking.payment.dto.PaymentHistoryItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByLoanIdOrderByPaymentDateDesc(Long loanId);
+
+    // Recorre idx_payment_loan_date en orden; Slice evita la consulta COUNT(*)
+    @Query("SELECT new com.banking.payment.dto.PaymentHistoryItem(p.id, p.loanId, p.amount, p.principalPaid, " +
+            "p.interestPaid, p.lateFee, p.paymentMethod, p.status, p.paymentDate, p.dueDate) " +
+            "FROM Payment p WHERE p.loanId = :loanId ORDER BY p.paymentDate DESC, p.id DESC")
+    Slice<PaymentHistoryItem> findHistoryByLoanId(Long loanId, Pageable pageable);
+
+    // Pagos de todos los préstamos del cliente, resueltos vía loan_projection
+    @Query("SELECT new com.banking.payment.dto.PaymentHistoryItem(p.id, p.loanId, p.amount, p.principalPaid, " +
+            "p.interestPaid, p.lateFee, p.paymentMethod, p.status, p.paymentDate, p.dueDate) " +
+            "FROM Payment p JOIN LoanProjection lp ON lp.loanId = p.loanId " +
+            "WHERE lp.customerId = :customerId ORDER BY p.paymentDate DESC, p.id DESC")
+    Slice<PaymentHistoryItem> findHistoryByCustomerId(Long customerId, Pageable pageable);
 }
\ No newline at end of file
@@ -2,19 +2,45 @@ package com.banking.payment.repository;
 
 import com.banking.payment.entity.PaymentSchedule;
 import com.banking.payment.enums.PaymentScheduleStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 public interface PaymentScheduleRepository extends JpaRepository<PaymentSchedule, Long> {
     List<PaymentSchedule> findByLoanIdOrderByInstallmentNumber(Long loanId);
     List<PaymentSchedule> findByStatus(PaymentScheduleStatus status);
+    boolean existsByLoanId(Long loanId);
+    long countByLoanIdAndStatus(Long loanId, PaymentScheduleStatus status);
+
+    @Query("SELECT MAX(ps.installmentNumber) FROM PaymentSchedule ps WHERE ps.loanId = :loanId")
+    Integer findMaxInstallmentNumber(Long loanId);
+
+    // Lectura sin bloqueo de la próxima cuota, para validar el pago antes de tomar locks
+    Optional<PaymentSchedule> findFirstByLoanIdAndStatusOrderByInstallmentNumber(Long loanId,
+                                                                               PaymentScheduleStatus status);
+
+    // Solo la cuota pendiente más baja; usa el índice (loan_id, status, installment_number).
+    // El NOT EXISTS impide tomar la cuota N+1 mientras la N siga pendiente (bloqueada por otro pago):
+    // en ese caso no devuelve nada en vez de saltar a la siguiente.
+    @Query(value = "SELECT s.* FROM payment_schedules s WHERE s.loan_id = :loanId AND s.status = 'PENDING' " +
+            "AND NOT EXISTS (SELECT 1 FROM payment_schedules e WHERE e.loan_id = s.loan_id " +
+            "AND e.status = 'PENDING' AND e.installment_number < s.installment_number) " +
+            "ORDER BY s.installment_number LIMIT 1 FOR UPDATE OF s SKIP LOCKED", nativeQuery = true)
+    Optional<PaymentSchedule> lockNextPending(Long loanId);
 
     @Query("SELECT ps FROM PaymentSchedule ps WHERE ps.status = 'PENDING' AND ps.dueDate < :date")
     List<PaymentSchedule> findOverduePayments(LocalDate date);
 
+    // Recorrido por keyset sobre id dentro de una partición (loanId % partitions)
+    @Query("SELECT ps FROM PaymentSchedule ps WHERE ps.status = 'PENDING' AND ps.dueDate < :date " +
+            "AND MOD(ps.loanId, :partitions) = :partition AND ps.id > :afterId ORDER BY ps.id")
+    List<PaymentSchedule> findOverduePage(LocalDate date, int partition, int partitions,
+                                          Long afterId, Pageable pageable);
+
     @Query("SELECT ps FROM PaymentSchedule ps WHERE ps.status = 'PENDING' AND ps.dueDate BETWEEN :startDate AND :endDate")
     List<PaymentSchedule> findUpcomingPayments(LocalDate startDate, LocalDate endDate);
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package com.banking.payment.scheduler;
+
+import com.banking.payment.entity.JobCheckpoint;
+import com.banking.payment.entity.PaymentSchedule;
+import com.banking.payment.event.PaymentOverdueEvent;
+import com.banking.payment.repository.JobCheckpointRepository;
+import com.banking.payment.repository.PaymentScheduleRepository;
+import com.banking.payment.service.LoanProjectionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+// Barrido de cuotas vencidas de una partición, por páginas (keyset sobre id). Las páginas se
+// leen de forma secuencial y se procesan en paralelo por oleadas; al cerrar cada oleada con
+// todos sus envíos confirmados se guarda el último id, de modo que un reinicio o reintento el
+// mismo día retoma desde ahí. Si algún envío falla, la ejecución se corta sin avanzar el checkpoint.
+@Component
+@Slf4j
+public class OverduePaymentSweep {
+
+    static final String JOB_NAME = "overdue-sweep";
+    private static final String PAYMENT_OVERDUE_TOPIC = "payment-overdue";
+
+    private final PaymentScheduleRepository scheduleRepository;
+    private final LoanProjectionService projectionService;
+    private final JobCheckpointRepository checkpointRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer sweepTimer;
+
+    @Value("${payment.overdue.page-size:1000}")
+    private int pageSize;
+
+    @Value("${payment.overdue.parallelism:4}")
+    private int parallelism;
+
+    @Value("${payment.overdue.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    public OverduePaymentSweep(PaymentScheduleRepository scheduleRepository,
+                               LoanProjectionService projectionService,
+                               JobCheckpointRepository checkpointRepository,
+                               KafkaTemplate<String, Object> kafkaTemplate,
+                               MeterRegistry meterRegistry) {
+        this.scheduleRepository = scheduleRepository;
+        this.projectionService = projectionService;
+        this.checkpointRepository = checkpointRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.sentCounter = meterRegistry.counter("payment.overdue.sent");
+        this.failedCounter = meterRegistry.counter("payment.overdue.failed");
+        this.sweepTimer = meterRegistry.timer("payment.overdue.sweep");
+    }
+
+    // keepAlive renueva el lease del lock de la partición entre oleadas; si devuelve false,
+    // otra réplica pudo tomar la partición y esta ejecución se detiene
+    public void run(int partition, int partitions, BooleanSupplier keepAlive) {
+        LocalDate today = LocalDate.now();
+        String jobName = JOB_NAME + "-" + partition + "-of-" + partitions;
+        JobCheckpoint checkpoint = loadCheckpoint(jobName, today);
+        if (checkpoint.isCompleted()) {
+            log.debug("Partición {}/{} del barrido de vencidos ya completada hoy", partition, partitions);
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        AtomicLong processed = new AtomicLong();
+        Long cursor = checkpoint.getLastProcessedId();
+        if (cursor > 0) {
+            log.info("Reanudando partición {}/{} del barrido de vencidos desde id {}", partition, partitions, cursor);
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            boolean hasMore = true;
+            while (hasMore) {
+                // Una oleada: hasta `parallelism` páginas leídas en orden y procesadas a la vez
+                List<CompletableFuture<Boolean>> wave = new ArrayList<>(parallelism);
+                for (int i = 0; i < parallelism; i++) {
+                    List<PaymentSchedule> page = scheduleRepository.findOverduePage(
+                            today, partition, partitions, cursor, PageRequest.ofSize(pageSize));
+                    if (page.isEmpty()) {
+                        hasMore = false;
+                        break;
+                    }
+                    cursor = page.getLast().getId();
+                    wave.add(CompletableFuture.supplyAsync(() -> processPage(page, today, processed), executor));
+                    if (page.size() < pageSize) {
+                        hasMore = false;
+                        break;
+                    }
+                }
+
+                CompletableFuture.allOf(wave.toArray(CompletableFuture[]::new)).join();
+                if (!wave.stream().allMatch(CompletableFuture::join)) {
+                    throw new RuntimeException("Envíos payment-overdue sin confirmar en la partición " + partition +
+                            "; se reanudará desde el id " + checkpoint.getLastProcessedId());
+                }
+                checkpoint.setLastProcessedId(cursor);
+                checkpoint.setCompleted(!hasMore);
+                checkpointRepository.save(checkpoint);
+
+                if (hasMore && !keepAlive.getAsBoolean()) {
+                    throw new RuntimeException("Lock de la partición " + partition + " perdido tras el id " + cursor);
+                }
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        sweepTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        double seconds = Math.max(elapsedNanos / 1_000_000_000.0, 0.001);
+        log.info("Partición {}/{} del barrido de vencidos terminada: {} cuotas en {} s ({} cuotas/s)",
+                partition, partitions, processed.get(), String.format("%.1f", seconds), Math.round(processed.get() / seconds));
+    }
+
+    // true solo si Kafka confirmó todos los envíos de la página
+    private boolean processPage(List<PaymentSchedule> page, LocalDate today, AtomicLong processed) {
+        Map<Long, Long> customerIds = projectionService.getCustomerIds(page.stream()
+                .map(PaymentSchedule::getLoanId)
+                .collect(Collectors.toSet()));
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(page.size());
+        for (PaymentSchedule schedule : page) {
+            Long customerId = customerIds.get(schedule.getLoanId());
+            if (customerId == null) {
+                failedCounter.increment();
+                continue;
+            }
+
+            PaymentOverdueEvent event = new PaymentOverdueEvent(
+                    schedule.getId(),
+                    schedule.getLoanId(),
+                    customerId,
+                    schedule.getInstallmentNumber(),
+                    schedule.getAmount(),
+                    schedule.getDueDate(),
+                    (int) ChronoUnit.DAYS.between(schedule.getDueDate(), today)
+            );
+
+            sends.add(kafkaTemplate.send(PAYMENT_OVERDUE_TOPIC, schedule.getLoanId().toString(), event)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            failedCounter.increment();
+                            log.error("Error enviando payment-overdue para cuota {}: {}",
+                                    schedule.getId(), ex.getMessage());
+                        } else {
+                            sentCounter.increment();
+                        }
+                    }));
+        }
+
+        // La página cuenta como procesada cuando Kafka confirmó todos sus envíos
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("Envíos de la página desde la cuota {} sin confirmar: {}",
+                    page.getFirst().getId(), e.toString());
+            return false;
+        }
+        processed.addAndGet(page.size());
+        return true;
+    }
+
+    private JobCheckpoint loadCheckpoint(String jobName, LocalDate today) {
+        return checkpointRepository.findById(jobName)
+                .filter(checkpoint -> today.equals(checkpoint.getRunDate()))
+                .orElseGet(() -> new JobCheckpoint(jobName, today, 0L, false, null));
+    }
+}
@@ -1,50 +1,48 @@
 package com.banking.payment.scheduler;
 
-import com.banking.payment.client.LoanClient;
-import com.banking.payment.dto.LoanResponse;
-import com.banking.payment.dto.PaymentScheduleResponse;
-import com.banking.payment.event.PaymentOverdueEvent;
-import com.banking.payment.service.PaymentScheduleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.List;
+import java.time.Duration;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentScheduledTasks {
 
-    private final PaymentScheduleService scheduleService;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final LoanClient loanClient;
+    private final OverduePaymentSweep overduePaymentSweep;
+    private final SchedulerLockService lockService;
 
-    // Ejecutar diariamente a las 8 AM
-    @Scheduled(cron = "0 0 8 * * ?")
-    public void checkOverduePayments() {
-        List<PaymentScheduleResponse> overduePayments = scheduleService.getOverduePayments();
-
-        for (PaymentScheduleResponse schedule : overduePayments) {
-            long daysOverdue = ChronoUnit.DAYS.between(schedule.getDueDate(), LocalDate.now());
+    // Número fijo de particiones (loanId % N): no depende de cuántas réplicas estén vivas
+    @Value("${payment.overdue.partitions:8}")
+    private int overduePartitions;
 
-            LoanResponse loan = loanClient.getLoanById(schedule.getLoanId()); // ← agregar
+    @Value("${payment.scheduler.lock-lease:PT1H}")
+    private Duration lockLease;
 
-            PaymentOverdueEvent event = new PaymentOverdueEvent(
-                    schedule.getId(),
-                    schedule.getLoanId(),
-                    loan.getCustomerId(), // ← usar el customerId real
-                    schedule.getInstallmentNumber(),
-                    schedule.getAmount(),
-                    schedule.getDueDate(),
-                    (int) daysOverdue
-            );
-
-            kafkaTemplate.send("payment-overdue", event);
+    // Ejecutar diariamente a las 8 AM. Todas las réplicas se disparan a la vez y se reparten
+    // las particiones: cada una toma las que logra bloquear y salta las que tiene otra réplica.
+    // Los reintentos del mismo día solo trabajan en particiones sin completar, desde su checkpoint.
+    @Scheduled(cron = "0 0 8 * * ?")
+    @Scheduled(cron = "${payment.overdue.retry-cron:0 */15 9-20 * * ?}")
+    public void checkOverduePayments() {
+        int claimed = 0;
+        for (int partition = 0; partition < overduePartitions; partition++) {
+            int current = partition;
+            String lockName = OverduePaymentSweep.JOB_NAME + "-" + partition + "-of-" + overduePartitions;
+            try {
+                if (lockService.runLocked(lockName, lockLease,
+                        keepAlive -> overduePaymentSweep.run(current, overduePartitions, keepAlive))) {
+                    claimed++;
+                }
+            } catch (Exception e) {
+                log.error("Partición {}/{} del barrido de vencidos interrumpida: {}",
+                        partition, overduePartitions, e.getMessage());
+            }
         }
+        log.info("Barrido de vencidos: {} de {} particiones procesadas por esta réplica", claimed, overduePartitions);
     }
-}
\ No newline at end of file
+}
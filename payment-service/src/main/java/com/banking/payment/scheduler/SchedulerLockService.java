@@ -0,0 +1,86 @@
+package com.banking.payment.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Lock distribuido sobre la tabla scheduler_locks. Solo usa INSERT/UPDATE estándar, así que
+// funciona igual en MySQL que en una base embebida. Si la réplica que lo tiene muere,
+// el lock expira al terminar el lease. Los tiempos se toman del reloj de la base de datos
+// (LOCALTIMESTAMP), no del de cada réplica, para que un desfase entre relojes no adelante la expiración.
+@Component
+@Slf4j
+public class SchedulerLockService {
+
+    private static final String LEASE_END = "TIMESTAMPADD(SECOND, ?, LOCALTIMESTAMP)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO scheduler_locks (name, locked_by, locked_at, locked_until) " +
+            "VALUES (?, ?, LOCALTIMESTAMP, " + LEASE_END + ")";
+
+    private static final String ACQUIRE_EXPIRED_SQL =
+            "UPDATE scheduler_locks SET locked_by = ?, locked_at = LOCALTIMESTAMP, locked_until = " + LEASE_END +
+            " WHERE name = ? AND locked_until <= LOCALTIMESTAMP";
+
+    // Solo el dueño renueva, y solo mientras su lease siga vigente
+    private static final String RENEW_SQL =
+            "UPDATE scheduler_locks SET locked_until = " + LEASE_END +
+            " WHERE name = ? AND locked_by = ? AND locked_until > LOCALTIMESTAMP";
+
+    private static final String RELEASE_SQL =
+            "UPDATE scheduler_locks SET locked_until = LOCALTIMESTAMP WHERE name = ? AND locked_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public SchedulerLockService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Ejecuta la tarea solo si obtiene el lock; devuelve false si otra réplica lo tiene.
+    // La tarea recibe un heartbeat que renueva el lease y devuelve false si el lock se perdió.
+    public boolean runLocked(String name, Duration lease, Consumer<BooleanSupplier> task) {
+        if (!tryAcquire(name, lease)) {
+            return false;
+        }
+        try {
+            task.accept(() -> renew(name, lease));
+        } finally {
+            release(name);
+        }
+        return true;
+    }
+
+    boolean tryAcquire(String name, Duration lease) {
+        long seconds = lease.toSeconds();
+        try {
+            jdbcTemplate.update(INSERT_SQL, name, instanceId, seconds);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // La fila ya existe: solo se toma si el lease anterior expiró
+            return jdbcTemplate.update(ACQUIRE_EXPIRED_SQL, instanceId, seconds, name) == 1;
+        }
+    }
+
+    boolean renew(String name, Duration lease) {
+        boolean renewed = jdbcTemplate.update(RENEW_SQL, lease.toSeconds(), name, instanceId) == 1;
+        if (!renewed) {
+            log.warn("Lock {} perdido: el lease expiró o lo tomó otra réplica", name);
+        }
+        return renewed;
+    }
+
+    void release(String name) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, name, instanceId);
+        } catch (Exception e) {
+            log.warn("No se pudo liberar el lock {} (expirará con el lease): {}", name, e.getMessage());
+        }
+    }
+}
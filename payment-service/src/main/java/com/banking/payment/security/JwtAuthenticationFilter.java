@@ -24,6 +24,9 @@ import java.util.stream.Collectors;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Atributo de request con el customerId del token (solo usuarios CLIENTE lo traen)
+    public static final String CUSTOMER_ID_ATTRIBUTE = "customerId";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -52,6 +55,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             String username = claims.getSubject();
             List<String> roles = claims.get("roles", List.class);
+            Object customerId = claims.get("customerId");
+            if (customerId != null) {
+                request.setAttribute(CUSTOMER_ID_ATTRIBUTE, Long.valueOf(customerId.toString()));
+            }
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 var authorities = roles.stream()
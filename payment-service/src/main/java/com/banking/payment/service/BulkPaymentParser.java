@@ -0,0 +1,58 @@
+package com.banking.payment.service;
+
+import com.banking.payment.dto.PaymentRequest;
+import com.banking.payment.enums.PaymentMethod;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+// Lectura de una línea del archivo de carga masiva, sin estado ni acceso a la base.
+// CSV: loanId,amount,paymentMethod[,referenceNumber[,notes]]; NDJSON: un PaymentRequest por línea
+final class BulkPaymentParser {
+
+    private static final String CSV_HEADER_PREFIX = "loanId";
+
+    private final ObjectMapper objectMapper;
+
+    BulkPaymentParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // La cabecera es opcional y solo se reconoce en la primera línea
+    static boolean isCsvHeader(String text, int lineNumber) {
+        return lineNumber == 1 && text.startsWith(CSV_HEADER_PREFIX);
+    }
+
+    PaymentRequest parse(String text, boolean ndjson) throws IOException {
+        return ndjson ? parseJson(text) : parseCsv(text);
+    }
+
+    PaymentRequest parseCsv(String text) {
+        // Límite 5: las notas pueden contener comas
+        String[] fields = text.split(",", 5);
+        if (fields.length < 3) {
+            throw new IllegalArgumentException("se esperan al menos loanId,amount,paymentMethod");
+        }
+        PaymentRequest request = new PaymentRequest();
+        request.setLoanId(Long.valueOf(fields[0].trim()));
+        request.setAmount(new BigDecimal(fields[1].trim()));
+        request.setPaymentMethod(PaymentMethod.valueOf(fields[2].trim()));
+        if (fields.length > 3 && !fields[3].isBlank()) request.setReferenceNumber(fields[3].trim());
+        if (fields.length > 4 && !fields[4].isBlank()) request.setNotes(fields[4].trim());
+        return validate(request);
+    }
+
+    PaymentRequest parseJson(String text) throws IOException {
+        return validate(objectMapper.readValue(text, PaymentRequest.class));
+    }
+
+    private PaymentRequest validate(PaymentRequest request) {
+        if (request.getLoanId() == null) throw new IllegalArgumentException("Loan ID es requerido");
+        if (request.getPaymentMethod() == null) throw new IllegalArgumentException("Método de pago es requerido");
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("Monto debe ser mayor a 0");
+        }
+        return request;
+    }
+}
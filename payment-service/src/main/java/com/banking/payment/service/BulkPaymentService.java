@@ -0,0 +1,345 @@
+package com.banking.payment.service;
+
+import com.banking.payment.dto.BulkPaymentLineResult;
+import com.banking.payment.dto.BulkPaymentResult;
+import com.banking.payment.dto.PaymentRequest;
+import com.banking.payment.enums.PaymentStatus;
+import com.banking.payment.event.PaymentReceivedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Carga masiva de pagos (archivos de conciliación bancaria). El archivo se lee línea a línea
+// y se procesa por bloques: cuotas resueltas con una consulta por bloque, pagos insertados
+// con batch JDBC y eventos payment-received escritos en el outbox en la misma transacción;
+// OutboxRelay los publica y los reintenta mientras Kafka no confirme.
+@Service
+@Slf4j
+public class BulkPaymentService {
+
+    private static final String PAYMENT_RECEIVED_TOPIC = "payment-received";
+
+    // Las N primeras cuotas pendientes de cada préstamo del bloque
+    private static final String NEXT_PENDING_SQL =
+            "SELECT id, loan_id, installment_number, amount, principal, interest, due_date FROM (" +
+            "SELECT ps.*, ROW_NUMBER() OVER (PARTITION BY loan_id ORDER BY installment_number) AS rn " +
+            "FROM payment_schedules ps WHERE loan_id IN (%s) AND status = 'PENDING') pending " +
+            "WHERE rn <= ? ORDER BY loan_id, installment_number";
+
+    // Reclamo condicionado: si un pago individual tomó la cuota entretanto, la línea falla
+    private static final String CLAIM_SCHEDULE_SQL =
+            "UPDATE payment_schedules SET status = 'PAID' WHERE id = ? AND status = 'PENDING'";
+
+    private static final String INSERT_PAYMENT_SQL =
+            "INSERT INTO payments (loan_id, schedule_id, amount, payment_method, transaction_id, " +
+            "principal_paid, interest_paid, late_fee, payment_date, due_date, status, " +
+            "reference_number, notes, processed_by, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_OUTBOX_SQL =
+            "INSERT INTO outbox (topic, event_key, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final BigDecimal LATE_FEE_RATE = BigDecimal.valueOf(0.05);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LoanProjectionService projectionService;
+    private final DailyCollectionService dailyCollectionService;
+    private final PaymentScheduleService scheduleService;
+    private final ObjectMapper objectMapper;
+    private final BulkPaymentParser parser;
+
+    @Value("${payment.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    private record BulkLine(int number, PaymentRequest request) {}
+
+    private record ScheduleRow(Long id, Long loanId, Integer installmentNumber, BigDecimal amount,
+                               BigDecimal principal, BigDecimal interest, LocalDate dueDate) {}
+
+    private record AcceptedPayment(BulkLine line, ScheduleRow schedule, Long customerId) {}
+
+    public BulkPaymentService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              LoanProjectionService projectionService,
+                              DailyCollectionService dailyCollectionService,
+                              PaymentScheduleService scheduleService,
+                              ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.projectionService = projectionService;
+        this.dailyCollectionService = dailyCollectionService;
+        this.scheduleService = scheduleService;
+        this.objectMapper = objectMapper;
+        this.parser = new BulkPaymentParser(objectMapper);
+    }
+
+    // CSV: loanId,amount,paymentMethod[,referenceNumber[,notes]] (cabecera opcional)
+    // NDJSON: un PaymentRequest por línea
+    public BulkPaymentResult ingest(InputStream input, boolean ndjson, String processedBy) throws IOException {
+        List<BulkPaymentLineResult> results = new ArrayList<>();
+        List<BulkLine> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String text;
+            int lineNumber = 0;
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) continue;
+                if (!ndjson && BulkPaymentParser.isCsvHeader(text, lineNumber)) continue;
+
+                try {
+                    PaymentRequest request = parser.parse(text, ndjson);
+                    if (request.getProcessedBy() == null) request.setProcessedBy(processedBy);
+                    chunk.add(new BulkLine(lineNumber, request));
+                } catch (Exception e) {
+                    results.add(failure(lineNumber, "Línea inválida: " + e.getMessage()));
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    results.addAll(processChunk(chunk));
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(processChunk(chunk));
+        }
+
+        results.sort(Comparator.comparingInt(BulkPaymentLineResult::getLine));
+        int processed = (int) results.stream().filter(BulkPaymentLineResult::isSuccess).count();
+        log.info("Carga masiva de pagos: {} líneas, {} procesadas, {} con error",
+                results.size(), processed, results.size() - processed);
+        return new BulkPaymentResult(results.size(), processed, results.size() - processed, results);
+    }
+
+    private List<BulkPaymentLineResult> processChunk(List<BulkLine> chunk) {
+        List<BulkPaymentLineResult> results = new ArrayList<>(chunk.size());
+
+        // Fuera de la transacción: un posible fallback a loan-service no retiene bloqueos
+        Map<Long, Long> customerIds = projectionService.getCustomerIds(chunk.stream()
+                .map(line -> line.request().getLoanId())
+                .collect(Collectors.toSet()));
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyChunk(chunk, customerIds, results));
+        } catch (Exception e) {
+            log.error("Error procesando bloque de {} pagos: {}", chunk.size(), e.getMessage(), e);
+            results.clear();
+            chunk.forEach(line -> results.add(failure(line.number(), "Error procesando bloque: " + e.getMessage())));
+        }
+        return results;
+    }
+
+    private void applyChunk(List<BulkLine> chunk,
+                            Map<Long, Long> customerIds,
+                            List<BulkPaymentLineResult> results) {
+        Map<Long, Integer> linesPerLoan = new HashMap<>();
+        chunk.forEach(line -> linesPerLoan.merge(line.request().getLoanId(), 1, Integer::sum));
+
+        Map<Long, Deque<ScheduleRow>> pendingByLoan = loadPending(linesPerLoan);
+
+        // Asignación en memoria: líneas del mismo préstamo pagan cuotas consecutivas
+        List<AcceptedPayment> accepted = new ArrayList<>(chunk.size());
+        for (BulkLine line : chunk) {
+            PaymentRequest request = line.request();
+            Deque<ScheduleRow> pending = pendingByLoan.get(request.getLoanId());
+            ScheduleRow schedule = pending != null ? pending.peekFirst() : null;
+            Long customerId = customerIds.get(request.getLoanId());
+
+            if (customerId == null) {
+                results.add(failure(line.number(), "Préstamo no encontrado"));
+            } else if (schedule == null) {
+                results.add(failure(line.number(), "No hay cuotas pendientes para este préstamo"));
+            } else if (request.getAmount().compareTo(schedule.amount()) < 0) {
+                results.add(failure(line.number(), "Monto insuficiente. Cuota completa: " + schedule.amount()));
+            } else {
+                pending.pollFirst();
+                accepted.add(new AcceptedPayment(line, schedule, customerId));
+            }
+        }
+        if (accepted.isEmpty()) return;
+
+        // Orden por id de cuota: los bloqueos se toman siempre en el mismo orden
+        accepted.sort(Comparator.comparing(p -> p.schedule().id()));
+        int[] claimed = jdbcTemplate.batchUpdate(CLAIM_SCHEDULE_SQL,
+                accepted.stream().map(p -> new Object[]{p.schedule().id()}).toList());
+
+        List<AcceptedPayment> toInsert = new ArrayList<>(accepted.size());
+        for (int i = 0; i < claimed.length; i++) {
+            if (claimed[i] > 0) {
+                toInsert.add(accepted.get(i));
+            } else {
+                results.add(failure(accepted.get(i).line().number(),
+                        "La cuota fue pagada por otra operación, reintentar la línea"));
+            }
+        }
+        if (toInsert.isEmpty()) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> paymentIds = insertPayments(toInsert, now);
+
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal totalPrincipal = BigDecimal.ZERO;
+        BigDecimal totalInterest = BigDecimal.ZERO;
+        BigDecimal totalLateFees = BigDecimal.ZERO;
+        List<PaymentReceivedEvent> events = new ArrayList<>(toInsert.size());
+        for (int i = 0; i < toInsert.size(); i++) {
+            AcceptedPayment payment = toInsert.get(i);
+            PaymentRequest request = payment.line().request();
+            ScheduleRow schedule = payment.schedule();
+            totalAmount = totalAmount.add(request.getAmount());
+            totalPrincipal = totalPrincipal.add(schedule.principal());
+            totalInterest = totalInterest.add(schedule.interest());
+            totalLateFees = totalLateFees.add(lateFee(schedule, now.toLocalDate()));
+
+            results.add(new BulkPaymentLineResult(payment.line().number(), true, paymentIds.get(i),
+                    schedule.installmentNumber(), null));
+            events.add(new PaymentReceivedEvent(
+                    paymentIds.get(i),
+                    request.getLoanId(),
+                    payment.customerId(),
+                    request.getAmount(),
+                    schedule.principal(),
+                    schedule.interest(),
+                    schedule.installmentNumber(),
+                    now
+            ));
+        }
+
+        insertOutboxEvents(events, now);
+
+        toInsert.stream()
+                .map(payment -> payment.schedule().loanId())
+                .distinct()
+                .sorted() // Mismo orden de bloqueo de proyecciones entre bloques concurrentes
+                .forEach(scheduleService::ensureWindow);
+
+        // Un solo incremento del libro diario por bloque
+        dailyCollectionService.record(now.toLocalDate(), toInsert.size(),
+                totalAmount, totalPrincipal, totalInterest, totalLateFees);
+    }
+
+    private Map<Long, Deque<ScheduleRow>> loadPending(Map<Long, Integer> linesPerLoan) {
+        List<Object> args = new ArrayList<>(linesPerLoan.keySet());
+        args.add(Collections.max(linesPerLoan.values()));
+        String placeholders = String.join(",", Collections.nCopies(linesPerLoan.size(), "?"));
+
+        Map<Long, Deque<ScheduleRow>> pendingByLoan = new HashMap<>();
+        jdbcTemplate.query(NEXT_PENDING_SQL.formatted(placeholders), rs -> {
+            ScheduleRow row = new ScheduleRow(
+                    rs.getLong("id"),
+                    rs.getLong("loan_id"),
+                    rs.getInt("installment_number"),
+                    rs.getBigDecimal("amount"),
+                    rs.getBigDecimal("principal"),
+                    rs.getBigDecimal("interest"),
+                    rs.getDate("due_date").toLocalDate());
+            pendingByLoan.computeIfAbsent(row.loanId(), id -> new ArrayDeque<>()).addLast(row);
+        }, args.toArray());
+        return pendingByLoan;
+    }
+
+    private List<Long> insertPayments(List<AcceptedPayment> payments, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_PAYMENT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        AcceptedPayment payment = payments.get(i);
+                        PaymentRequest request = payment.line().request();
+                        ScheduleRow schedule = payment.schedule();
+                        BigDecimal lateFee = lateFee(schedule, now.toLocalDate());
+
+                        ps.setLong(1, request.getLoanId());
+                        ps.setLong(2, schedule.id());
+                        ps.setBigDecimal(3, request.getAmount());
+                        ps.setString(4, request.getPaymentMethod().name());
+                        ps.setString(5, UUID.randomUUID().toString());
+                        ps.setBigDecimal(6, schedule.principal());
+                        ps.setBigDecimal(7, schedule.interest());
+                        ps.setBigDecimal(8, lateFee);
+                        ps.setTimestamp(9, timestamp);
+                        ps.setDate(10, Date.valueOf(schedule.dueDate()));
+                        ps.setString(11, PaymentStatus.COMPLETED.name());
+                        ps.setString(12, request.getReferenceNumber());
+                        ps.setString(13, request.getNotes());
+                        ps.setString(14, request.getProcessedBy());
+                        ps.setTimestamp(15, timestamp);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return payments.size();
+                    }
+                },
+                keyHolder);
+
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    // Con clave loanId: el relay publica los eventos de un préstamo en el orden en que se escribieron
+    private void insertOutboxEvents(List<PaymentReceivedEvent> events, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, PAYMENT_RECEIVED_TOPIC);
+            ps.setString(2, event.getLoanId().toString());
+            ps.setString(3, toJson(event));
+            ps.setTimestamp(4, timestamp);
+        });
+    }
+
+    private String toJson(PaymentReceivedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializando evento payment-received", e);
+        }
+    }
+
+    private BigDecimal lateFee(ScheduleRow schedule, LocalDate today) {
+        return today.isAfter(schedule.dueDate())
+                ? schedule.amount().multiply(LATE_FEE_RATE)
+                : BigDecimal.ZERO;
+    }
+
+    private BulkPaymentLineResult failure(int line, String message) {
+        return new BulkPaymentLineResult(line, false, null, null, message);
+    }
+}
@@ -0,0 +1,135 @@
+package com.banking.payment.service;
+
+import com.banking.payment.dto.DailyCollectionResponse;
+import com.banking.payment.entity.DailyCollection;
+import com.banking.payment.repository.DailyCollectionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Libro diario de cobranza: una fila por día con los totales cobrados. Los reportes
+// leen solo estas filas, nunca la tabla payments.
+@Service
+@Slf4j
+public class DailyCollectionService {
+
+    private static final int MAX_REPORT_DAYS = 366;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO daily_collections (collection_date, payment_count, total_amount, " +
+            "principal_collected, interest_collected, late_fees_collected, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, NOW()) ON DUPLICATE KEY UPDATE " +
+            "payment_count = payment_count + VALUES(payment_count), " +
+            "total_amount = total_amount + VALUES(total_amount), " +
+            "principal_collected = principal_collected + VALUES(principal_collected), " +
+            "interest_collected = interest_collected + VALUES(interest_collected), " +
+            "late_fees_collected = late_fees_collected + VALUES(late_fees_collected), " +
+            "updated_at = NOW()";
+
+    private static final String DELETE_DAY_SQL =
+            "DELETE FROM daily_collections WHERE collection_date = ?";
+
+    private static final String REBUILD_DAY_SQL =
+            "INSERT INTO daily_collections (collection_date, payment_count, total_amount, " +
+            "principal_collected, interest_collected, late_fees_collected, updated_at) " +
+            "SELECT ?, COUNT(*), COALESCE(SUM(amount), 0), COALESCE(SUM(principal_paid), 0), " +
+            "COALESCE(SUM(interest_paid), 0), COALESCE(SUM(late_fee), 0), NOW() " +
+            "FROM payments WHERE status = 'COMPLETED' AND payment_date >= ? AND payment_date < ? " +
+            "HAVING COUNT(*) > 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DailyCollectionRepository collectionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${payment.reports.rebuild-parallelism:4}")
+    private int rebuildParallelism;
+
+    public DailyCollectionService(JdbcTemplate jdbcTemplate,
+                                  DailyCollectionRepository collectionRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.collectionRepository = collectionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Suma uno o varios pagos del mismo día; corre dentro de la transacción del pago
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(LocalDate date, long count, BigDecimal amount,
+                       BigDecimal principal, BigDecimal interest, BigDecimal lateFee) {
+        jdbcTemplate.update(UPSERT_SQL, Date.valueOf(date), count,
+                orZero(amount), orZero(principal), orZero(interest), orZero(lateFee));
+    }
+
+    // Serie continua: los días sin cobros se devuelven en cero
+    @Transactional(readOnly = true)
+    public List<DailyCollectionResponse> getDaily(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        Map<LocalDate, DailyCollection> byDate = collectionRepository
+                .findByCollectionDateBetweenOrderByCollectionDate(from, to).stream()
+                .collect(Collectors.toMap(DailyCollection::getCollectionDate, Function.identity()));
+
+        List<DailyCollectionResponse> report = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DailyCollection row = byDate.get(day);
+            report.add(row == null
+                    ? new DailyCollectionResponse(day, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO)
+                    : new DailyCollectionResponse(day, row.getPaymentCount(), row.getTotalAmount(),
+                            row.getPrincipalCollected(), row.getInterestCollected(), row.getLateFeesCollected()));
+        }
+        return report;
+    }
+
+    // Recalcula el rango desde payments; cada día en su propia transacción y en paralelo
+    public void rebuild(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        try (ExecutorService executor = Executors.newFixedThreadPool(rebuildParallelism)) {
+            List<CompletableFuture<Void>> days = new ArrayList<>();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                LocalDate current = day;
+                days.add(CompletableFuture.runAsync(() -> rebuildDay(current), executor));
+            }
+            CompletableFuture.allOf(days.toArray(CompletableFuture[]::new)).join();
+        }
+        log.info("Libro diario de cobranza reconstruido del {} al {}", from, to);
+    }
+
+    private void rebuildDay(LocalDate day) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_DAY_SQL, Date.valueOf(day));
+            jdbcTemplate.update(REBUILD_DAY_SQL, Date.valueOf(day),
+                    Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        });
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("La fecha inicial debe ser anterior a la final");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_REPORT_DAYS) {
+            throw new RuntimeException("El rango máximo es de " + MAX_REPORT_DAYS + " días");
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,86 @@
+package com.banking.payment.service;
+
+import com.banking.payment.client.LoanClient;
+import com.banking.payment.dto.LoanResponse;
+import com.banking.payment.entity.LoanProjection;
+import com.banking.payment.event.LoanDisbursedEvent;
+import com.banking.payment.repository.LoanProjectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoanProjectionService {
+
+    private final LoanProjectionRepository projectionRepository;
+    private final LoanClient loanClient;
+
+    // Idempotente: un loan-disbursed reentregado sobrescribe la misma fila
+    @Transactional
+    public void recordDisbursed(LoanDisbursedEvent event) {
+        LoanProjection projection = projectionRepository.findById(event.getLoanId())
+                .orElseGet(LoanProjection::new);
+        projection.setLoanId(event.getLoanId());
+        projection.setCustomerId(event.getCustomerId());
+        projection.setStatus("ACTIVE");
+        projection.setPrincipal(event.getPrincipal() != null ? event.getPrincipal() : event.getTotalAmount());
+        projection.setTotalAmount(event.getTotalAmount());
+        projection.setMonthlyPayment(event.getMonthlyPayment());
+        projection.setInterestRate(event.getInterestRate());
+        projection.setTermMonths(event.getTermMonths());
+        projection.setDisbursementDate(event.getDisbursementDate());
+        projectionRepository.save(projection);
+    }
+
+    // Lectura local; solo los préstamos desembolsados antes de existir la proyección
+    // consultan loan-service, y quedan guardados para las siguientes llamadas. Las filas
+    // incompletas (backfill anterior sin estado ni fecha de desembolso) se completan igual.
+    @Transactional
+    public LoanProjection getLoan(Long loanId) {
+        return projectionRepository.findById(loanId)
+                .filter(projection -> projection.getStatus() != null && projection.getDisbursementDate() != null)
+                .orElseGet(() -> backfill(loanId));
+    }
+
+    // customerId de varios préstamos con una sola consulta; los ausentes se completan uno a uno
+    public Map<Long, Long> getCustomerIds(Set<Long> loanIds) {
+        Map<Long, Long> customerIds = new HashMap<>();
+        for (LoanProjection projection : projectionRepository.findAllById(loanIds)) {
+            customerIds.put(projection.getLoanId(), projection.getCustomerId());
+        }
+        for (Long loanId : loanIds) {
+            if (customerIds.containsKey(loanId)) continue;
+            try {
+                customerIds.put(loanId, backfill(loanId).getCustomerId());
+            } catch (Exception e) {
+                log.warn("No se pudo resolver el préstamo {}: {}", loanId, e.getMessage());
+            }
+        }
+        return customerIds;
+    }
+
+    private LoanProjection backfill(Long loanId) {
+        log.info("Proyección no encontrada para préstamo {}, consultando loan-service", loanId);
+        LoanResponse loan = loanClient.getLoanById(loanId);
+
+        LoanProjection projection = projectionRepository.findById(loanId).orElseGet(LoanProjection::new);
+        projection.setLoanId(loan.getId());
+        projection.setCustomerId(loan.getCustomerId());
+        projection.setStatus(loan.getStatus());
+        projection.setPrincipal(loan.getAmount());
+        projection.setTotalAmount(loan.getTotalAmount());
+        projection.setMonthlyPayment(loan.getMonthlyPayment());
+        projection.setInterestRate(loan.getInterestRate());
+        projection.setTermMonths(loan.getTermMonths());
+        // Sin ella el cronograma no puede calcular las cuotas fuera de la ventana materializada
+        projection.setDisbursementDate(loan.getDisbursementDate());
+        return projectionRepository.save(projection);
+    }
+}
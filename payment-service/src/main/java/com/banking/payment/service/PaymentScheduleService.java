@@ -1,17 +1,25 @@
 package com.banking.payment.service;
 
+import com.banking.payment.amortization.AmortizationCalculator;
 import com.banking.payment.dto.LoanResponse;
 import com.banking.payment.dto.PaymentScheduleResponse;
+import com.banking.payment.entity.LoanProjection;
 import com.banking.payment.entity.PaymentSchedule;
+import com.banking.payment.enums.AmortizationSystem;
 import com.banking.payment.enums.PaymentScheduleStatus;
+import com.banking.payment.repository.LoanProjectionRepository;
 import com.banking.payment.repository.PaymentScheduleRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
@@ -21,59 +29,132 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PaymentScheduleService {
 
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private static final String INSERT_SCHEDULE_SQL =
+            "INSERT INTO payment_schedules (loan_id, installment_number, amount, principal, interest, " +
+            "remaining_balance, due_date, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Relleno de la ventana: una cuota que ya existe (uk_schedule_loan_installment) se deja como está
+    private static final String INSERT_WINDOW_SQL = INSERT_SCHEDULE_SQL +
+            " ON DUPLICATE KEY UPDATE loan_id = loan_id";
+
     private final PaymentScheduleRepository scheduleRepository;
+    private final LoanProjectionRepository projectionRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // 0 = se guardan todas las cuotas al desembolsar. Con K > 0 solo se guardan las K
+    // siguientes pendientes; el resto se calcula a partir de los parámetros de loan_projection.
+    @Value("${payment.schedule.materialized-window:0}")
+    private int materializedWindow;
 
     @Transactional
     public List<PaymentScheduleResponse> generateSchedule(LoanResponse loan, LocalDate startDate) {
-        List<PaymentSchedule> schedules = new ArrayList<>();
-
-        BigDecimal monthlyRate = loan.getInterestRate()
-                .divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP)
-                .divide(BigDecimal.valueOf(12), 6, RoundingMode.HALF_UP);
+        List<PaymentSchedule> schedules = computeInstallments(loan.getId(), loan.getAmount(),
+                loan.getInterestRate(), loan.getTermMonths(), startDate, 1, loan.getTermMonths());
 
-        BigDecimal balance = loan.getAmount();
-        BigDecimal monthlyPayment = loan.getMonthlyPayment();
+        insertSchedules(INSERT_SCHEDULE_SQL, isLazy()
+                ? schedules.subList(0, Math.min(materializedWindow, schedules.size()))
+                : schedules);
 
-        for (int i = 1; i <= loan.getTermMonths(); i++) {
-            BigDecimal interest = balance.multiply(monthlyRate)
-                    .setScale(2, RoundingMode.HALF_UP);
-            BigDecimal principal = monthlyPayment.subtract(interest);
+        return schedules.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
 
-            // Ajuste para última cuota
-            if (i == loan.getTermMonths()) {
-                principal = balance;
-                monthlyPayment = principal.add(interest);
-            }
+    @Transactional(readOnly = true)
+    public boolean hasSchedule(Long loanId) {
+        return scheduleRepository.existsByLoanId(loanId);
+    }
 
-            balance = balance.subtract(principal);
+    // Tras un pago: vuelve a completar la ventana de K cuotas pendientes materializadas.
+    // El bloqueo de la proyección serializa los rellenos del mismo préstamo hasta el commit; si aun
+    // así el conteo llega desactualizado, las cuotas repetidas se ignoran al insertar.
+    @Transactional
+    public void ensureWindow(Long loanId) {
+        if (!isLazy()) return;
 
-            PaymentSchedule schedule = new PaymentSchedule();
-            schedule.setLoanId(loan.getId());
-            schedule.setInstallmentNumber(i);
-            schedule.setAmount(monthlyPayment);
-            schedule.setPrincipal(principal);
-            schedule.setInterest(interest);
-            schedule.setRemainingBalance(balance.max(BigDecimal.ZERO));
-            schedule.setDueDate(startDate.plusMonths(i));
-            schedule.setStatus(PaymentScheduleStatus.PENDING);
+        LoanProjection loan = projectionRepository.lockById(loanId).orElse(null);
+        if (loan == null || loan.getDisbursementDate() == null) return;
 
-            schedules.add(schedule);
-        }
+        long pending = scheduleRepository.countByLoanIdAndStatus(loanId, PaymentScheduleStatus.PENDING);
+        if (pending >= materializedWindow) return;
 
-        scheduleRepository.saveAll(schedules);
+        Integer lastMaterialized = scheduleRepository.findMaxInstallmentNumber(loanId);
+        if (lastMaterialized == null || lastMaterialized >= loan.getTermMonths()) return;
 
-        return schedules.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        int to = (int) Math.min(loan.getTermMonths(), lastMaterialized + materializedWindow - pending);
+        insertSchedules(INSERT_WINDOW_SQL, computeInstallments(loanId, loan.getPrincipal(),
+                loan.getInterestRate(), loan.getTermMonths(), loan.getDisbursementDate().toLocalDate(),
+                lastMaterialized + 1, to));
     }
 
+    // Cuotas guardadas más las calculadas fuera de la ventana, como una sola vista
     @Transactional(readOnly = true)
     public List<PaymentScheduleResponse> getScheduleByLoan(Long loanId) {
-        return scheduleRepository.findByLoanIdOrderByInstallmentNumber(loanId).stream()
+        List<PaymentSchedule> schedules = new ArrayList<>(scheduleRepository.findByLoanIdOrderByInstallmentNumber(loanId));
+
+        int lastMaterialized = schedules.isEmpty() ? 0 : schedules.getLast().getInstallmentNumber();
+        projectionRepository.findById(loanId)
+                .filter(loan -> loan.getDisbursementDate() != null && lastMaterialized < loan.getTermMonths())
+                .ifPresent(loan -> schedules.addAll(computeInstallments(loanId, loan.getPrincipal(),
+                        loan.getInterestRate(), loan.getTermMonths(), loan.getDisbursementDate().toLocalDate(),
+                        lastMaterialized + 1, loan.getTermMonths())));
+
+        return schedules.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    // PaymentSchedule usa IDENTITY, que impide a Hibernate agrupar INSERTs; con JdbcTemplate
+    // todo el cronograma viaja en un batch (multi-row con rewriteBatchedStatements)
+    private void insertSchedules(String sql, List<PaymentSchedule> schedules) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(sql, schedules, INSERT_BATCH_SIZE, (ps, schedule) -> {
+            ps.setLong(1, schedule.getLoanId());
+            ps.setInt(2, schedule.getInstallmentNumber());
+            ps.setBigDecimal(3, schedule.getAmount());
+            ps.setBigDecimal(4, schedule.getPrincipal());
+            ps.setBigDecimal(5, schedule.getInterest());
+            ps.setBigDecimal(6, schedule.getRemainingBalance());
+            ps.setDate(7, Date.valueOf(schedule.getDueDate()));
+            ps.setString(8, schedule.getStatus().name());
+            ps.setTimestamp(9, now);
+        });
+    }
+
+    private boolean isLazy() {
+        return materializedWindow > 0;
+    }
+
+    // Cuotas [from, to] del cronograma; el motor es determinista, así que una cuota calculada
+    // hoy es idéntica a la que se habría guardado al desembolsar
+    private List<PaymentSchedule> computeInstallments(Long loanId, BigDecimal amount, BigDecimal interestRate,
+                                                      int termMonths, LocalDate startDate, int from, int to) {
+        List<PaymentSchedule> schedules = new ArrayList<>(Math.max(to - from + 1, 0));
+
+        AmortizationCalculator.forEachInstallment(
+                AmortizationSystem.FRENCH,
+                AmortizationCalculator.toCents(amount),
+                AmortizationCalculator.monthlyRateMicros(interestRate),
+                termMonths,
+                (number, payment, principal, interest, remaining) -> {
+                    if (number < from || number > to) return;
+                    PaymentSchedule schedule = new PaymentSchedule();
+                    schedule.setLoanId(loanId);
+                    schedule.setInstallmentNumber(number);
+                    schedule.setAmount(AmortizationCalculator.fromCents(payment));
+                    schedule.setPrincipal(AmortizationCalculator.fromCents(principal));
+                    schedule.setInterest(AmortizationCalculator.fromCents(interest));
+                    schedule.setRemainingBalance(AmortizationCalculator.fromCents(remaining));
+                    schedule.setDueDate(startDate.plusMonths(number));
+                    schedule.setStatus(PaymentScheduleStatus.PENDING);
+                    schedules.add(schedule);
+                });
+
+        return schedules;
+    }
+
     @Transactional(readOnly = true)
     public List<PaymentScheduleResponse> getUpcomingPayments(int daysAhead) {
         LocalDate today = LocalDate.now();
@@ -1,7 +1,7 @@
 package com.banking.payment.service;
 
-import com.banking.payment.client.LoanClient;
 import com.banking.payment.dto.*;
+import com.banking.payment.entity.LoanProjection;
 import com.banking.payment.entity.Payment;
 import com.banking.payment.entity.PaymentSchedule;
 import com.banking.payment.enums.PaymentScheduleStatus;
@@ -11,6 +11,8 @@ import com.banking.payment.repository.PaymentRepository;
 import com.banking.payment.repository.PaymentScheduleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,30 +28,33 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PaymentService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PaymentRepository paymentRepository;
     private final PaymentScheduleRepository scheduleRepository;
-    private final LoanClient loanClient;
+    private final PaymentScheduleService scheduleService;
+    private final LoanProjectionService projectionService;
+    private final DailyCollectionService dailyCollectionService;
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
     @Transactional
     public PaymentResponse processPayment(PaymentRequest request) {
-        LoanResponse loan = loanClient.getLoanById(request.getLoanId());
-
-        // Buscar próxima cuota pendiente
-        List<PaymentSchedule> pendingSchedules = scheduleRepository
-                .findByLoanIdOrderByInstallmentNumber(request.getLoanId()).stream()
-                .filter(s -> s.getStatus() == PaymentScheduleStatus.PENDING)
-                .collect(Collectors.toList());
-
-        if (pendingSchedules.isEmpty()) {
-            throw new RuntimeException("No hay cuotas pendientes para este préstamo");
-        }
-
-        PaymentSchedule schedule = pendingSchedules.get(0);
-
-        // Validar monto
-        if (request.getAmount().compareTo(schedule.getAmount()) < 0) {
-            throw new RuntimeException("Monto insuficiente. Cuota completa: " + schedule.getAmount());
+        // customerId desde la proyección local: sin llamadas a loan-service ni customer-service
+        LoanProjection loan = projectionService.getLoan(request.getLoanId());
+
+        // Validar monto antes de bloquear: un pago inválido no retiene la cuota
+        PaymentSchedule next = scheduleRepository
+                .findFirstByLoanIdAndStatusOrderByInstallmentNumber(request.getLoanId(), PaymentScheduleStatus.PENDING)
+                .orElseThrow(() -> new RuntimeException("No hay cuotas pendientes para este préstamo"));
+        validateAmount(request, next);
+
+        // Próxima cuota pendiente, bloqueada hasta el commit. Si otro pago tiene tomada una cuota
+        // anterior no se salta a la siguiente: las cuotas se pagan en orden
+        PaymentSchedule schedule = scheduleRepository.lockNextPending(request.getLoanId())
+                .orElseThrow(() -> new RuntimeException(
+                        "Hay otro pago en proceso para este préstamo, intente nuevamente"));
+        if (!schedule.getId().equals(next.getId())) {
+            validateAmount(request, schedule);
         }
 
         // Crear pago
@@ -79,11 +84,17 @@ public class PaymentService {
 
         // Actualizar cronograma
         schedule.setStatus(PaymentScheduleStatus.PAID);
-        scheduleRepository.save(schedule);
+        scheduleRepository.saveAndFlush(schedule);
+        scheduleService.ensureWindow(schedule.getLoanId());
 
         // Publicar evento
         publishPaymentReceived(payment, loan.getCustomerId(), schedule.getInstallmentNumber());
 
+        // Último statement antes del commit: la fila del día es compartida por todos los pagos
+        // y su bloqueo se retiene solo lo que tarda el commit
+        dailyCollectionService.record(payment.getPaymentDate().toLocalDate(), 1, payment.getAmount(),
+                payment.getPrincipalPaid(), payment.getInterestPaid(), payment.getLateFee());
+
         return mapToResponse(payment);
     }
 
@@ -94,6 +105,16 @@ public class PaymentService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public PaymentPageResponse getPaymentHistoryByLoan(Long loanId, int page, int size) {
+        return toPage(paymentRepository.findHistoryByLoanId(loanId, pageRequest(page, size)));
+    }
+
+    @Transactional(readOnly = true)
+    public PaymentPageResponse getPaymentHistoryByCustomer(Long customerId, int page, int size) {
+        return toPage(paymentRepository.findHistoryByCustomerId(customerId, pageRequest(page, size)));
+    }
+
     @Transactional(readOnly = true)
     public PaymentResponse getPaymentById(Long id) {
         Payment payment = paymentRepository.findById(id)
@@ -101,6 +122,12 @@ public class PaymentService {
         return mapToResponse(payment);
     }
 
+    private void validateAmount(PaymentRequest request, PaymentSchedule schedule) {
+        if (request.getAmount().compareTo(schedule.getAmount()) < 0) {
+            throw new RuntimeException("Monto insuficiente. Cuota completa: " + schedule.getAmount());
+        }
+    }
+
     private void publishPaymentReceived(Payment payment, Long customerId, Integer installmentNumber) {
         PaymentReceivedEvent event = new PaymentReceivedEvent(
                 payment.getId(),
@@ -117,6 +144,14 @@ public class PaymentService {
         log.info("Published payment received event for loan: {}", payment.getLoanId());
     }
 
+    private PageRequest pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.clamp(size, 1, MAX_PAGE_SIZE));
+    }
+
+    private PaymentPageResponse toPage(Slice<PaymentHistoryItem> slice) {
+        return new PaymentPageResponse(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext());
+    }
+
     private PaymentResponse mapToResponse(Payment payment) {
         PaymentResponse response = new PaymentResponse();
         response.setId(payment.getId());
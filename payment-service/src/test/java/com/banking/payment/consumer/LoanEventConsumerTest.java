@@ -0,0 +1,82 @@
+package com.banking.payment.consumer;
+
+import com.banking.payment.config.KafkaConfig;
+import com.banking.payment.service.LoanProjectionService;
+import com.banking.payment.service.PaymentScheduleService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Orden por préstamo en el lote de loan-disbursed: cuando un evento pasa a reintentos,
+// los siguientes del mismo préstamo lo siguen en orden y los demás préstamos no se ven afectados
+class LoanEventConsumerTest {
+
+    private PaymentScheduleService scheduleService;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private LoanEventConsumer consumer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        scheduleService = mock(PaymentScheduleService.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        // Cronograma ya existente: el evento se procesa sin generar nada
+        when(scheduleService.hasSchedule(any())).thenReturn(true);
+
+        consumer = new LoanEventConsumer(scheduleService, mock(LoanProjectionService.class), kafkaTemplate,
+                new KafkaConfig().objectMapper(), new SimpleMeterRegistry(), 4);
+    }
+
+    @Test
+    void laterEventsOfALoanFollowTheFirstOneIntoRetry() throws Exception {
+        consumer.handleLoanDisbursed(List.of(
+                record(0, "42", "{no es json"),
+                record(1, "43", event(43L)),
+                record(2, "42", event(42L)),
+                record(3, "42", event(42L).replace("\"termMonths\":12", "\"termMonths\":24"))));
+
+        ArgumentCaptor<String> forwarded = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate, times(3)).send(eq(KafkaConfig.LOAN_DISBURSED_RETRY_TOPIC), eq("42"), forwarded.capture());
+        assertThat(forwarded.getAllValues()).containsExactly(
+                "{no es json",
+                event(42L),
+                event(42L).replace("\"termMonths\":12", "\"termMonths\":24"));
+
+        // El préstamo 42 no se procesó fuera de orden; el 43 sí se procesó
+        verify(scheduleService, never()).hasSchedule(42L);
+        verify(scheduleService).hasSchedule(43L);
+        verify(kafkaTemplate, never()).send(anyString(), eq("43"), any());
+    }
+
+    @Test
+    void loanWithoutFailuresIsNotForwarded() throws Exception {
+        consumer.handleLoanDisbursed(List.of(record(0, "42", event(42L)), record(1, "42", event(42L))));
+
+        verify(scheduleService, times(2)).hasSchedule(42L);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String key, String value) {
+        return new ConsumerRecord<>("loan-disbursed", 0, offset, key, value);
+    }
+
+    private static String event(Long loanId) {
+        return "{\"loanId\":" + loanId + ",\"customerId\":7,\"totalAmount\":12000.00,\"monthlyPayment\":1000.00," +
+                "\"termMonths\":12,\"disbursementDate\":\"2026-01-15T10:00:00\",\"interestRate\":12.00," +
+                "\"principal\":10000.00}";
+    }
+}
@@ -0,0 +1,116 @@
+package com.banking.payment.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Lock de tareas programadas sobre una base embebida: dos instancias del servicio hacen de
+// dos réplicas que comparten la tabla scheduler_locks
+class SchedulerLockServiceTest {
+
+    private static final String LOCK = "overdue-sweep-0-of-8";
+    private static final Duration LEASE = Duration.ofMinutes(10);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private SchedulerLockService replicaA;
+    private SchedulerLockService replicaB;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE scheduler_locks (" +
+                "name VARCHAR(100) PRIMARY KEY, locked_by VARCHAR(100) NOT NULL, " +
+                "locked_at TIMESTAMP NOT NULL, locked_until TIMESTAMP NOT NULL)");
+        replicaA = new SchedulerLockService(jdbcTemplate);
+        replicaB = new SchedulerLockService(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void acquiresAFreeLockAndRunsTheTask() {
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThat(replicaA.runLocked(LOCK, LEASE, keepAlive -> ran.set(true))).isTrue();
+
+        assertThat(ran.get()).isTrue();
+        // Liberado al terminar: la otra réplica puede tomarlo en la siguiente ejecución
+        assertThat(replicaB.tryAcquire(LOCK, LEASE)).isTrue();
+    }
+
+    @Test
+    void heldLockIsNotAcquiredByAnotherReplica() {
+        AtomicBoolean otherRan = new AtomicBoolean();
+
+        replicaA.runLocked(LOCK, LEASE, keepAlive ->
+                assertThat(replicaB.runLocked(LOCK, LEASE, other -> otherRan.set(true))).isFalse());
+
+        assertThat(otherRan.get()).isFalse();
+    }
+
+    @Test
+    void expiredLeaseIsTakenOver() {
+        // La réplica A muere con el lock tomado: nadie lo libera
+        assertThat(replicaA.tryAcquire(LOCK, LEASE)).isTrue();
+        String ownerA = lockedBy();
+        assertThat(replicaB.tryAcquire(LOCK, LEASE)).isFalse();
+
+        expireLease();
+
+        assertThat(replicaB.tryAcquire(LOCK, LEASE)).isTrue();
+        assertThat(lockedBy()).isNotEqualTo(ownerA);
+        // El dueño anterior ya no puede renovar un lease que otra réplica tomó
+        assertThat(replicaA.renew(LOCK, LEASE)).isFalse();
+        assertThat(replicaB.renew(LOCK, LEASE)).isTrue();
+    }
+
+    @Test
+    void releaseByAnotherReplicaDoesNotFreeTheLock() {
+        assertThat(replicaA.tryAcquire(LOCK, LEASE)).isTrue();
+        String ownerA = lockedBy();
+
+        replicaB.release(LOCK);
+
+        assertThat(replicaB.tryAcquire(LOCK, LEASE)).isFalse();
+        assertThat(lockedBy()).isEqualTo(ownerA);
+
+        replicaA.release(LOCK);
+        assertThat(replicaB.tryAcquire(LOCK, LEASE)).isTrue();
+    }
+
+    @Test
+    void keepAliveExtendsTheLeaseWhileHeld() {
+        replicaA.runLocked(LOCK, Duration.ofSeconds(30), keepAlive -> {
+            jdbcTemplate.update("UPDATE scheduler_locks SET locked_until = TIMESTAMPADD(SECOND, 5, LOCALTIMESTAMP)");
+            assertThat(keepAlive.getAsBoolean()).isTrue();
+            // Renovado con el lease completo (30 s), no con lo que quedaba
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM scheduler_locks " +
+                    "WHERE locked_until > TIMESTAMPADD(SECOND, 20, LOCALTIMESTAMP)", Integer.class)).isEqualTo(1);
+        });
+    }
+
+    private void expireLease() {
+        jdbcTemplate.update("UPDATE scheduler_locks SET locked_until = TIMESTAMPADD(SECOND, -60, LOCALTIMESTAMP)");
+    }
+
+    private String lockedBy() {
+        return jdbcTemplate.queryForObject("SELECT locked_by FROM scheduler_locks WHERE name = ?", String.class, LOCK);
+    }
+}
@@ -0,0 +1,115 @@
+package com.banking.payment.service;
+
+import com.banking.payment.dto.PaymentRequest;
+import com.banking.payment.enums.PaymentMethod;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Formato de las líneas de carga masiva: CSV (con notas que llevan comas) y NDJSON
+class BulkPaymentParserTest {
+
+    private final BulkPaymentParser parser = new BulkPaymentParser(new ObjectMapper());
+
+    @Test
+    void parsesCsvWithRequiredFieldsOnly() {
+        PaymentRequest request = parser.parseCsv("42,350.75,BANK_TRANSFER");
+
+        assertThat(request.getLoanId()).isEqualTo(42L);
+        assertThat(request.getAmount()).isEqualByComparingTo("350.75");
+        assertThat(request.getPaymentMethod()).isEqualTo(PaymentMethod.BANK_TRANSFER);
+        assertThat(request.getReferenceNumber()).isNull();
+        assertThat(request.getNotes()).isNull();
+    }
+
+    @Test
+    void parsesCsvOptionalFieldsAndTrimsWhitespace() {
+        PaymentRequest request = parser.parseCsv(" 7 , 100 , CASH , REF-001 , pago en ventanilla ");
+
+        assertThat(request.getLoanId()).isEqualTo(7L);
+        assertThat(request.getAmount()).isEqualByComparingTo("100");
+        assertThat(request.getPaymentMethod()).isEqualTo(PaymentMethod.CASH);
+        assertThat(request.getReferenceNumber()).isEqualTo("REF-001");
+        assertThat(request.getNotes()).isEqualTo("pago en ventanilla");
+    }
+
+    @Test
+    void keepsCommasInsideCsvNotes() {
+        PaymentRequest request = parser.parseCsv("7,100,CASH,REF-001,cuota 3, pagada con retraso, sin mora");
+
+        assertThat(request.getNotes()).isEqualTo("cuota 3, pagada con retraso, sin mora");
+    }
+
+    @Test
+    void blankOptionalCsvFieldsStayNull() {
+        PaymentRequest request = parser.parseCsv("7,100,CASH, ,");
+
+        assertThat(request.getReferenceNumber()).isNull();
+        assertThat(request.getNotes()).isNull();
+    }
+
+    @Test
+    void rejectsInvalidCsvLines() {
+        assertThatThrownBy(() -> parser.parseCsv("7,100"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("loanId,amount,paymentMethod");
+        assertThatThrownBy(() -> parser.parseCsv("siete,100,CASH"))
+                .isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parser.parseCsv("7,cien,CASH"))
+                .isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parser.parseCsv("7,100,CHEQUE"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> parser.parseCsv("7,0,CASH"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Monto debe ser mayor a 0");
+        assertThatThrownBy(() -> parser.parseCsv("7,-5,CASH"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Monto debe ser mayor a 0");
+    }
+
+    @Test
+    void recognizesCsvHeaderOnlyOnTheFirstLine() {
+        assertThat(BulkPaymentParser.isCsvHeader("loanId,amount,paymentMethod", 1)).isTrue();
+        assertThat(BulkPaymentParser.isCsvHeader("loanId,amount,paymentMethod", 2)).isFalse();
+        assertThat(BulkPaymentParser.isCsvHeader("42,350.75,BANK_TRANSFER", 1)).isFalse();
+    }
+
+    @Test
+    void parsesNdjsonLine() throws IOException {
+        PaymentRequest request = parser.parseJson("{\"loanId\":42,\"amount\":350.75,\"paymentMethod\":\"DEBIT_CARD\"," +
+                "\"referenceNumber\":\"TX-9\",\"notes\":\"ok\",\"processedBy\":\"conciliacion\"}");
+
+        assertThat(request.getLoanId()).isEqualTo(42L);
+        assertThat(request.getAmount()).isEqualByComparingTo("350.75");
+        assertThat(request.getPaymentMethod()).isEqualTo(PaymentMethod.DEBIT_CARD);
+        assertThat(request.getReferenceNumber()).isEqualTo("TX-9");
+        assertThat(request.getNotes()).isEqualTo("ok");
+        assertThat(request.getProcessedBy()).isEqualTo("conciliacion");
+    }
+
+    @Test
+    void rejectsInvalidNdjsonLines() {
+        assertThatThrownBy(() -> parser.parseJson("{\"amount\":10,\"paymentMethod\":\"CASH\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Loan ID es requerido");
+        assertThatThrownBy(() -> parser.parseJson("{\"loanId\":1,\"amount\":10}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Método de pago es requerido");
+        assertThatThrownBy(() -> parser.parseJson("{\"loanId\":1,\"paymentMethod\":\"CASH\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Monto debe ser mayor a 0");
+        assertThatThrownBy(() -> parser.parseJson("{\"loanId\":1,"))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void parseDispatchesOnFormat() throws IOException {
+        assertThat(parser.parse("5,20,CASH", false).getLoanId()).isEqualTo(5L);
+        assertThat(parser.parse("{\"loanId\":6,\"amount\":20,\"paymentMethod\":\"CASH\"}", true).getLoanId())
+                .isEqualTo(6L);
+    }
+}
@@ -0,0 +1,100 @@
+package com.banking.payment.service;
+
+import com.banking.payment.dto.LoanResponse;
+import com.banking.payment.repository.LoanProjectionRepository;
+import com.banking.payment.repository.PaymentScheduleRepository;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Statements por desembolso: el cronograma completo debe viajar en un batch JDBC,
+// no en un INSERT por cuota
+class PaymentScheduleServiceBatchTest {
+
+    private static final String DATA_SOURCE = "schedules";
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private PaymentScheduleService scheduleService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        new JdbcTemplate(database).execute("CREATE TABLE payment_schedules (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, loan_id BIGINT NOT NULL, installment_number INT NOT NULL, " +
+                "amount DECIMAL(10,2) NOT NULL, principal DECIMAL(10,2) NOT NULL, interest DECIMAL(10,2) NOT NULL, " +
+                "remaining_balance DECIMAL(12,2), due_date DATE NOT NULL, status VARCHAR(20) NOT NULL, " +
+                "created_at TIMESTAMP, CONSTRAINT uk_schedule_loan_installment UNIQUE (loan_id, installment_number))");
+
+        DataSource counting = ProxyDataSourceBuilder.create(database)
+                .name(DATA_SOURCE)
+                .countQuery()
+                .build();
+        jdbcTemplate = new JdbcTemplate(counting);
+        scheduleService = new PaymentScheduleService(
+                mock(PaymentScheduleRepository.class), mock(LoanProjectionRepository.class), jdbcTemplate);
+        QueryCountHolder.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        QueryCountHolder.clear();
+        database.shutdown();
+    }
+
+    @Test
+    void thirtyYearScheduleIsInsertedInOneBatch() {
+        scheduleService.generateSchedule(loan(1L, 360), LocalDate.of(2026, 1, 15));
+
+        QueryCount count = QueryCountHolder.get(DATA_SOURCE);
+        assertThat(count.getInsert()).as("INSERTs ejecutados").isEqualTo(1);
+        assertThat(count.getTotal()).as("statements totales").isEqualTo(1);
+        assertThat(rows(1L)).isEqualTo(360);
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithTheTerm() {
+        scheduleService.generateSchedule(loan(1L, 12), LocalDate.of(2026, 1, 15));
+        long shortTerm = QueryCountHolder.get(DATA_SOURCE).getTotal();
+
+        QueryCountHolder.clear();
+        scheduleService.generateSchedule(loan(2L, 360), LocalDate.of(2026, 1, 15));
+        long longTerm = QueryCountHolder.get(DATA_SOURCE).getTotal();
+
+        assertThat(longTerm).isEqualTo(shortTerm);
+        assertThat(rows(1L)).isEqualTo(12);
+        assertThat(rows(2L)).isEqualTo(360);
+    }
+
+    private int rows(Long loanId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_schedules WHERE loan_id = ?", Integer.class, loanId);
+    }
+
+    private static LoanResponse loan(Long id, int termMonths) {
+        LoanResponse loan = new LoanResponse();
+        loan.setId(id);
+        loan.setCustomerId(7L);
+        loan.setAmount(new BigDecimal("150000.00"));
+        loan.setInterestRate(new BigDecimal("9.50"));
+        loan.setTermMonths(termMonths);
+        return loan;
+    }
+}